@@ -0,0 +1,104 @@
+package com.homework.morosystems;
+
+import com.homework.morosystems.support.BenchmarkApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from starting the application to the first successful {@code GET /users}, with the default configuration
+ * and with the {@code fast-start} profile. The H2 file database is migrated beforehand by a start in a separate JVM,
+ * as it is for any instance but the first; every measurement then runs in a fresh fork, so that classes are loaded
+ * cold. The start of the JVM itself is not included.
+ * <p>
+ * Run with {@code gradle jmh -PjmhIncludes=StartupBenchmark startupReport}, which prints both times and the change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    /**
+     * Value of {@code spring.profiles.active}.
+     */
+    @Param({"default", "fast-start"})
+    private String profile;
+
+    private Path databaseDirectory;
+    private ConfigurableApplicationContext context;
+
+    /**
+     * Starts and stops the application, run by {@link #migrate()} in a separate JVM.
+     */
+    public static void main(String[] args) {
+        BenchmarkApplication.start(args).close();
+    }
+
+    @Setup(Level.Trial)
+    public void migrate() throws IOException, InterruptedException {
+        databaseDirectory = Files.createTempDirectory("startup-benchmark");
+        List<String> command = new ArrayList<>(List.of(
+                ProcessHandle.current().info().command().orElse("java"),
+                "-cp", System.getProperty("java.class.path"),
+                StartupBenchmark.class.getName()));
+        command.addAll(properties());
+        int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("Migration run failed with exit code " + exitCode);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (context != null) {
+            context.close();
+        }
+        FileSystemUtils.deleteRecursively(databaseDirectory);
+    }
+
+    @Benchmark
+    public int firstRequest() throws IOException, InterruptedException {
+        context = BenchmarkApplication.startServer(properties().toArray(String[]::new));
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + BenchmarkApplication.port(context) + "/users?page=0&size=20")).build();
+        try (HttpClient httpClient = HttpClient.newHttpClient()) {
+            int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status != 200) {
+                throw new IllegalStateException("Unexpected status " + status);
+            }
+            return status;
+        }
+    }
+
+    private List<String> properties() {
+        return List.of(
+                "spring.datasource.url=jdbc:h2:file:" + databaseDirectory.resolve("users") + ";MODE=PostgreSQL",
+                "spring.profiles.active=" + profile);
+    }
+}
@@ -0,0 +1,65 @@
+package com.homework.morosystems.configuration;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording one sample into a Prometheus timer, as configured in {@code application.yml}.
+ * Run with {@code -prof gc} to see the allocation per recording.
+ * <ul>
+ *     <li>{@code plain} - count, sum and max only</li>
+ *     <li>{@code histogram} - fixed buckets between 1 ms and 10 s, as for {@code http.server.requests}</li>
+ *     <li>{@code percentiles} - client-side p50/p99 over a rotating window, not used by the application</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({"plain", "histogram", "percentiles"})
+    private String timerType;
+
+    private Timer timer;
+
+    @Setup
+    public void setUp() {
+        PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        Timer.Builder builder = Timer.builder("benchmark.duration");
+        timer = switch (timerType) {
+            case "plain" -> builder.register(meterRegistry);
+            case "histogram" -> builder.publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(meterRegistry);
+            case "percentiles" -> builder.publishPercentiles(0.5, 0.99).register(meterRegistry);
+            default -> throw new IllegalArgumentException("Unknown timer type " + timerType);
+        };
+    }
+
+    @Benchmark
+    public void record() {
+        timer.record(ThreadLocalRandom.current().nextLong(100_000, 50_000_000), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,69 @@
+package com.homework.morosystems.configuration;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of hashing and verifying a password for the algorithms and cost settings selectable through
+ * {@link PasswordEncoderProperties}. Throughput gives the hashes per second one core sustains,
+ * sample time gives the latency percentiles a login pays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "secret12345";
+
+    /**
+     * {@code bcrypt:<strength>}, {@code argon2:<memory KiB>:<iterations>} or {@code pbkdf2:<iterations>}.
+     */
+    @Param({"bcrypt:10", "bcrypt:12", "argon2:16384:2", "argon2:65536:3", "pbkdf2:310000", "pbkdf2:600000"})
+    public String setting;
+
+    private PasswordEncoder passwordEncoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        String[] parts = setting.split(":");
+        PasswordEncoderProperties.Bcrypt bcrypt = new PasswordEncoderProperties.Bcrypt(10);
+        PasswordEncoderProperties.Argon2 argon2 = new PasswordEncoderProperties.Argon2(16, 32, 1, 16384, 2);
+        PasswordEncoderProperties.Pbkdf2 pbkdf2 = new PasswordEncoderProperties.Pbkdf2(16, 310000);
+        switch (parts[0]) {
+            case PasswordEncoderFactory.BCRYPT -> bcrypt = new PasswordEncoderProperties.Bcrypt(Integer.parseInt(parts[1]));
+            case PasswordEncoderFactory.ARGON2 -> argon2 = new PasswordEncoderProperties.Argon2(16, 32, 1,
+                    Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            case PasswordEncoderFactory.PBKDF2 -> pbkdf2 = new PasswordEncoderProperties.Pbkdf2(16, Integer.parseInt(parts[1]));
+            default -> throw new IllegalArgumentException("Unknown algorithm " + parts[0]);
+        }
+
+        passwordEncoder = PasswordEncoderFactory.create(new PasswordEncoderProperties(parts[0], bcrypt, argon2, pbkdf2));
+        hash = passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches(PASSWORD, hash);
+    }
+}
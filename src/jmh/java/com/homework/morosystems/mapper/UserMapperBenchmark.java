@@ -0,0 +1,60 @@
+package com.homework.morosystems.mapper;
+
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.repository.UserEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link UserMapper} conversions done on every read and update of a user.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    private final UserMapper userMapper = new UserMapperImpl();
+
+    private UserEntity userEntity;
+    private UserCreateUpdateDto userDto;
+
+    @Setup
+    public void setUp() {
+        userEntity = new UserEntity();
+        userEntity.setId(42L);
+        userEntity.setName("User 42");
+        userEntity.setUsername("user42");
+        userEntity.setPassword("{bcrypt}$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3XH9eNDRmDUvL3oVOmXvD5W");
+        userEntity.setVersion(3L);
+
+        userDto = new UserCreateUpdateDto()
+                .name("Renamed user")
+                .username("renamed42")
+                .password("secret12345");
+    }
+
+    @Benchmark
+    public UserGetDto toDto() {
+        return userMapper.toDto(userEntity);
+    }
+
+    @Benchmark
+    public UserEntity updateEntityFromDto() {
+        userMapper.updateEntityFromDto(userDto, userEntity);
+        return userEntity;
+    }
+}
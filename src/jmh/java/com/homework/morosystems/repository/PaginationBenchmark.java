@@ -0,0 +1,99 @@
+package com.homework.morosystems.repository;
+
+import com.homework.morosystems.support.BenchmarkPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of fetching one page of users with {@code OFFSET/LIMIT} plus {@code count(*)}
+ * compared to a keyset seek on the primary key, at increasing page depth.
+ * Runs the same SQL Hibernate issues for {@link UserRepository} against PostgreSQL, as H2 answers
+ * both the offset and the count from its counted B-tree and hides the difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PaginationBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int FIRST_ID = 100;
+
+    @Param({"1", "1000", "100000"})
+    private int page;
+
+    private Connection connection;
+    private PreparedStatement offsetQuery;
+    private PreparedStatement countQuery;
+    private PreparedStatement keysetQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = BenchmarkPostgres.openConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS users");
+            statement.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, name VARCHAR(100) NOT NULL, "
+                    + "username VARCHAR(100) NOT NULL UNIQUE, password VARCHAR(255) NOT NULL)");
+            statement.execute("INSERT INTO users SELECT x, 'User ' || x, 'user' || x, 'HASHED' "
+                    + "FROM generate_series(%d, %d) x".formatted(FIRST_ID, FIRST_ID + (page + 1) * PAGE_SIZE));
+            statement.execute("ANALYZE users");
+        }
+
+        offsetQuery = connection.prepareStatement("SELECT id, name, username, password FROM users ORDER BY id OFFSET ? LIMIT ?");
+        countQuery = connection.prepareStatement("SELECT count(id) FROM users");
+        keysetQuery = connection.prepareStatement("SELECT id, name, username, password FROM users WHERE id > ? ORDER BY id LIMIT ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void offset(Blackhole blackhole) throws SQLException {
+        offsetQuery.setInt(1, page * PAGE_SIZE);
+        offsetQuery.setInt(2, PAGE_SIZE);
+        consume(offsetQuery, blackhole);
+        try (ResultSet resultSet = countQuery.executeQuery()) {
+            resultSet.next();
+            blackhole.consume(resultSet.getLong(1));
+        }
+    }
+
+    @Benchmark
+    public void keyset(Blackhole blackhole) throws SQLException {
+        keysetQuery.setLong(1, FIRST_ID + (long) page * PAGE_SIZE - 1);
+        keysetQuery.setInt(2, PAGE_SIZE + 1);
+        consume(keysetQuery, blackhole);
+    }
+
+    private static void consume(PreparedStatement query, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getLong(1));
+                blackhole.consume(resultSet.getString(2));
+            }
+        }
+    }
+}
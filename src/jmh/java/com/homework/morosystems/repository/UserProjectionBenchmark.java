@@ -0,0 +1,104 @@
+package com.homework.morosystems.repository;
+
+import com.homework.morosystems.mapper.UserMapper;
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.service.UserService;
+import com.homework.morosystems.support.BenchmarkApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads of one user and of a page of users in a read-only transaction, loading managed {@link UserEntity} objects
+ * and mapping them ({@code entity}) compared to selecting {@link UserView} projections ({@code projection}).
+ * Run with {@code -PjmhProfilers=gc}, {@code gc.alloc.rate.norm} is the allocation per read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class UserProjectionBenchmark {
+
+    private static final int USERS = 1000;
+
+    @Param({"entity", "projection"})
+    private String mode;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private UserMapper userMapper;
+    private TransactionTemplate readOnlyTransaction;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("spring.cache.type=none");
+        userRepository = context.getBean(UserRepository.class);
+        userMapper = context.getBean(UserMapper.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        List<UserCreateUpdateDto> userDtos = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            userDtos.add(new UserCreateUpdateDto()
+                    .name("User " + i)
+                    .username("user" + i)
+                    .password("secret12345"));
+        }
+        ids = context.getBean(UserService.class).createUsers(userDtos).getCreatedIds().stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserGetDto getById() {
+        long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        return readOnlyTransaction.execute(status -> "entity".equals(mode)
+                ? userRepository.findById(id).map(userMapper::toDto).orElseThrow()
+                : userRepository.findViewById(id).map(userMapper::toDto).orElseThrow());
+    }
+
+    @Benchmark
+    public List<UserGetDto> getPage(PageSize pageSize) {
+        Pageable pageable = PageRequest.of(ThreadLocalRandom.current().nextInt(USERS / pageSize.size), pageSize.size, Sort.by("id"));
+        return readOnlyTransaction.execute(status -> "entity".equals(mode)
+                ? userRepository.findAll(pageable).map(userMapper::toDto).getContent()
+                : userRepository.findAllViews(pageable).map(userMapper::toDto).getContent());
+    }
+
+    @State(Scope.Benchmark)
+    public static class PageSize {
+
+        @Param({"20", "100"})
+        private int size;
+    }
+}
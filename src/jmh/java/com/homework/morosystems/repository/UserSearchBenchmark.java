@@ -0,0 +1,95 @@
+package com.homework.morosystems.repository;
+
+import com.homework.morosystems.support.BenchmarkPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the first page of {@link UserRepository#search} on 10 million users with the trigram indexes
+ * of changelog 005, for queries of different selectivity. Runs the SQL Hibernate generates for the query.
+ * Filling the table and building the indexes takes several minutes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class UserSearchBenchmark {
+
+    private static final int USERS = 10_000_000;
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * From a handful of matches down to a million ({@code user1}) and none at all.
+     */
+    @Param({"user4242424", "r424242", "er 4242", "user1", "nobody"})
+    private String query;
+
+    private Connection connection;
+    private PreparedStatement searchQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = BenchmarkPostgres.openConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            statement.execute("CREATE TABLE IF NOT EXISTS search_users (id BIGINT PRIMARY KEY, name VARCHAR(100) NOT NULL, "
+                    + "username VARCHAR(100) NOT NULL UNIQUE, password VARCHAR(255) NOT NULL, version BIGINT NOT NULL)");
+            try (ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM search_users")) {
+                resultSet.next();
+                if (resultSet.getLong(1) != USERS) {
+                    statement.execute("TRUNCATE search_users");
+                    statement.execute("INSERT INTO search_users SELECT x, 'User ' || x, 'user' || x, 'HASHED', 0 "
+                            + "FROM generate_series(1, %d) x".formatted(USERS));
+                    statement.execute("CREATE INDEX IF NOT EXISTS search_users_username_trgm_idx ON search_users USING gin (username gin_trgm_ops)");
+                    statement.execute("CREATE INDEX IF NOT EXISTS search_users_name_trgm_idx ON search_users USING gin (name gin_trgm_ops)");
+                    statement.execute("VACUUM ANALYZE search_users");
+                }
+            }
+        }
+
+        searchQuery = connection.prepareStatement("SELECT u.id, u.name, u.password, u.username, u.version FROM search_users u "
+                + "WHERE (u.username ILIKE ? ESCAPE '!' OR u.name ILIKE ? ESCAPE '!') AND u.id > ? "
+                + "ORDER BY u.id FETCH FIRST ? ROWS ONLY");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void search(Blackhole blackhole) throws SQLException {
+        String pattern = "%" + query + "%";
+        searchQuery.setString(1, pattern);
+        searchQuery.setString(2, pattern);
+        searchQuery.setLong(3, 0);
+        searchQuery.setInt(4, PAGE_SIZE + 1);
+        try (ResultSet resultSet = searchQuery.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getLong(1));
+                blackhole.consume(resultSet.getString(2));
+            }
+        }
+    }
+}
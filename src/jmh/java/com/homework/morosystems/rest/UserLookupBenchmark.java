@@ -0,0 +1,118 @@
+package com.homework.morosystems.rest;
+
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.service.UserService;
+import com.homework.morosystems.support.BenchmarkApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Time to fetch {@code count} random users over HTTP, with one {@code GET /users/{id}} per user
+ * compared to a single {@code POST /users/lookup}, with the user cache disabled and enabled.
+ * Requests go over one keep-alive connection, so the difference is the per-request cost of the server,
+ * not of connection setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class UserLookupBenchmark {
+
+    private static final int USERS = 5000;
+
+    @Param({"10", "50"})
+    private int count;
+
+    /**
+     * Value of {@code spring.cache.type}.
+     */
+    @Param({"none", "caffeine"})
+    private String cacheType;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.startServer("spring.cache.type=" + cacheType);
+        baseUrl = "http://localhost:" + BenchmarkApplication.port(context);
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        List<UserCreateUpdateDto> userDtos = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            userDtos.add(new UserCreateUpdateDto()
+                    .name("User " + i)
+                    .username("user" + i)
+                    .password("secret12345"));
+        }
+        ids = context.getBean(UserService.class).createUsers(userDtos).getCreatedIds().stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        httpClient.close();
+        context.close();
+    }
+
+    @Benchmark
+    public void individualGets(Blackhole blackhole) throws IOException, InterruptedException {
+        for (long id : randomIds()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + id)).build();
+            blackhole.consume(check(httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray())));
+        }
+    }
+
+    @Benchmark
+    public byte[] lookup() throws IOException, InterruptedException {
+        String body = Arrays.stream(randomIds())
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(",", "{\"ids\":[", "]}"));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/lookup"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return check(httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()));
+    }
+
+    private long[] randomIds() {
+        return ThreadLocalRandom.current().longs(count, 0, ids.length).map(i -> ids[(int) i]).toArray();
+    }
+
+    private static byte[] check(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode() + ": " + new String(response.body()));
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,98 @@
+package com.homework.morosystems.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.homework.morosystems.mapper.UserMapper;
+import com.homework.morosystems.mapper.UserMapperImpl;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.model.UserPageResponseDto;
+import com.homework.morosystems.repository.UserView;
+import com.homework.morosystems.service.UserViewPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to serialize a {@link UserPageResponseDto} the way the message converter writes the {@code GET /users}
+ * response, at different page sizes. The output goes to a discarding stream, so only the encoding is measured.
+ * <p>
+ * {@link #jacksonFromViews()} and {@link #streamingFromViews()} start from the projections the repository returns,
+ * so they include the mapping to DTOs the Jackson path needs. Run with {@code -PjmhProfilers=gc} for the allocation
+ * rate and the bytes allocated per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class UserPageSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private final UserMapper userMapper = new UserMapperImpl();
+
+    private ObjectWriter objectWriter;
+    private UserPageHttpMessageConverter converter;
+    private UserPageResponseDto page;
+    private List<UserView> views;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        objectWriter = objectMapper.writerFor(UserPageResponseDto.class);
+        converter = new UserPageHttpMessageConverter(objectMapper);
+
+        views = new ArrayList<>(pageSize);
+        List<UserGetDto> users = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            views.add(new UserView(id, "User " + id, "user" + id, 0L));
+            users.add(new UserGetDto().id(id).name("User " + id).username("user" + id).version(0L));
+        }
+        page = pageMetadata(new UserPageResponseDto().content(users));
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        objectWriter.writeValue(OutputStream.nullOutputStream(), page);
+    }
+
+    /**
+     * The {@code GET /users} path before the streaming converter: DTO list, page DTO and Jackson.
+     */
+    @Benchmark
+    public void jacksonFromViews() throws IOException {
+        List<UserGetDto> users = views.stream().map(userMapper::toDto).toList();
+        objectWriter.writeValue(OutputStream.nullOutputStream(), pageMetadata(new UserPageResponseDto().content(users)));
+    }
+
+    @Benchmark
+    public void streamingFromViews() throws IOException {
+        UserViewPage viewPage = new UserViewPage(views, userMapper::toDto);
+        converter.write((UserViewPage) pageMetadata(viewPage), OutputStream.nullOutputStream());
+    }
+
+    private UserPageResponseDto pageMetadata(UserPageResponseDto page) {
+        return page.currentPage(0)
+                .pageSize(pageSize)
+                .totalElements(100_000L)
+                .totalPages(100_000 / pageSize)
+                .nextCursor("MTAwMA");
+    }
+}
@@ -0,0 +1,139 @@
+package com.homework.morosystems.rest.handler;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.homework.morosystems.exception.ApplicationException;
+import com.homework.morosystems.mapper.ErrorMapper;
+import com.homework.morosystems.mapper.ErrorMapperImpl;
+import com.homework.morosystems.model.ErrorResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of an expected client error (404 not found, 409 conflict) from the throw in the service
+ * to the response entity, with log lines formatted into a discarding appender.
+ * <ul>
+ *     <li>{@code before} - exception with stack trace and {@code synchronized toString}, every occurrence
+ *     logged at WARN with the stack trace, a new response DTO and counter lookup per error</li>
+ *     <li>{@code after} - {@link ControllerErrorHandler} with stackless {@link ApplicationException}
+ *     and the default log limit of 10 lines per status and second</li>
+ * </ul>
+ * The exception is thrown {@value #STACK_DEPTH} frames deep, roughly the depth of a controller call
+ * in the servlet stack. Run with {@code -prof gc} to see the allocation per error.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(2)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    private static final int STACK_DEPTH = 80;
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(ErrorPathBenchmark.class);
+
+    @Param({"404", "409"})
+    private int status;
+
+    @Param({"before", "after"})
+    private String mode;
+
+    private HttpStatus httpStatus;
+    private ControllerErrorHandler controllerErrorHandler;
+    private final ErrorMapper errorMapper = new ErrorMapperImpl();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Setup
+    public void setUp() {
+        httpStatus = HttpStatus.valueOf(status);
+        controllerErrorHandler = new ControllerErrorHandler(errorMapper, meterRegistry, 10, Duration.ofSeconds(1));
+        discardLogOutput();
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponseDto> handleError() {
+        try {
+            throwAt(STACK_DEPTH);
+            throw new IllegalStateException("unreachable");
+        } catch (LegacyApplicationException e) {
+            log.warn("ApplicationException occurred while processing request. {}", e.toString(), e);
+            meterRegistry.counter("app.errors", "status", String.valueOf(status), "exception", e.getClass().getSimpleName())
+                    .increment();
+            return ResponseEntity.status(httpStatus)
+                    .body(new ErrorResponseDto().status(httpStatus.toString()).message(e.errorMsg));
+        } catch (ApplicationException e) {
+            return controllerErrorHandler.handleGenericException(e);
+        }
+    }
+
+    private void throwAt(int depth) {
+        if (depth > 0) {
+            throwAt(depth - 1);
+            return;
+        }
+        if ("before".equals(mode)) {
+            throw new LegacyApplicationException("User with id 42 not found", httpStatus);
+        }
+        throw new ApplicationException("User with id 42 not found", httpStatus);
+    }
+
+    private static void discardLogOutput() {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%d %-5level [%thread] %logger{36} - %msg%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(loggerContext);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+
+        Logger root = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.addAppender(appender);
+        root.setLevel(Level.INFO);
+    }
+
+    /**
+     * {@link ApplicationException} as it was before the error path was made cheap.
+     */
+    private static class LegacyApplicationException extends RuntimeException {
+        private final String errorMsg;
+        private final HttpStatus httpStatus;
+
+        LegacyApplicationException(String errorMsg, HttpStatus httpStatus) {
+            this.errorMsg = errorMsg;
+            this.httpStatus = httpStatus;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "{httpStatus=%s, errorMsg=%s}".formatted(httpStatus.value(), errorMsg);
+        }
+    }
+}
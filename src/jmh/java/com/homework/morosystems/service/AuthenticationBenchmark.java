@@ -0,0 +1,69 @@
+package com.homework.morosystems.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of HTTP Basic authentication with a cold and a warm {@link AuthenticationCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+    private static final String USERNAME = "alice123";
+    private static final String PASSWORD = "secret12345";
+
+    private AuthenticationCache authenticationCache;
+    private AuthenticationProvider authenticationProvider;
+    private Authentication request;
+
+    @Setup
+    public void setUp() {
+        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+        InMemoryUserDetailsManager userDetailsService = new InMemoryUserDetailsManager(User.withUsername(USERNAME)
+                .password(passwordEncoder.encode(PASSWORD))
+                .roles("USER")
+                .build());
+
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider(passwordEncoder);
+        daoAuthenticationProvider.setUserDetailsService(userDetailsService);
+
+        authenticationCache = new AuthenticationCache(10_000, Duration.ofMinutes(5));
+        authenticationProvider = new CachingAuthenticationProvider(daoAuthenticationProvider, authenticationCache);
+        request = UsernamePasswordAuthenticationToken.unauthenticated(USERNAME, PASSWORD);
+    }
+
+    @Benchmark
+    public Authentication coldCache() {
+        authenticationCache.invalidate(USERNAME);
+        return authenticationProvider.authenticate(request);
+    }
+
+    @Benchmark
+    public Authentication warmCache() {
+        return authenticationProvider.authenticate(request);
+    }
+}
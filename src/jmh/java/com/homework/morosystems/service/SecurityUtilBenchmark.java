@@ -0,0 +1,60 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.configuration.PasswordEncoderFactory;
+import com.homework.morosystems.configuration.PasswordEncoderProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link SecurityUtil#encodePassword} as a request sees it: the hand-off to the
+ * {@link PasswordHashingExecutor}, the BCrypt hash itself and the timer around both.
+ * Strength 4 mostly shows the hand-off overhead, strength 10 is the default cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class SecurityUtilBenchmark {
+
+    @Param({"4", "10"})
+    private int strength;
+
+    private PasswordHashingExecutor passwordHashingExecutor;
+    private SecurityUtil securityUtil;
+
+    @Setup
+    public void setUp() {
+        PasswordEncoderProperties properties = new PasswordEncoderProperties(PasswordEncoderFactory.BCRYPT,
+                new PasswordEncoderProperties.Bcrypt(strength),
+                new PasswordEncoderProperties.Argon2(16, 32, 1, 16384, 2),
+                new PasswordEncoderProperties.Pbkdf2(16, 310000));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        passwordHashingExecutor = new PasswordHashingExecutor(PasswordEncoderFactory.create(properties), meterRegistry, 0, 64);
+        securityUtil = new SecurityUtil(passwordHashingExecutor, meterRegistry);
+    }
+
+    @TearDown
+    public void tearDown() {
+        passwordHashingExecutor.destroy();
+    }
+
+    @Benchmark
+    public String encodePassword() {
+        return securityUtil.encodePassword("secret12345");
+    }
+}
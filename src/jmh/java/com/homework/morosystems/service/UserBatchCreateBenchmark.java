@@ -0,0 +1,91 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.model.UserBatchCreateResponseDto;
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.repository.UserRepository;
+import com.homework.morosystems.support.BenchmarkApplication;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link UserService#createUsers} at different batch sizes.
+ * The {@code users} secondary metric is the number of created users per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class UserBatchCreateBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UserRepository userRepository;
+    private long nextUser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        userService = context.getBean(UserService.class);
+        userRepository = context.getBean(UserRepository.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearUsers() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserBatchCreateResponseDto createUsers(CreatedUsers createdUsers) {
+        List<UserCreateUpdateDto> userDtos = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            long user = nextUser++;
+            userDtos.add(new UserCreateUpdateDto()
+                    .name("User " + user)
+                    .username("user" + user)
+                    .password("secret12345"));
+        }
+
+        UserBatchCreateResponseDto response = userService.createUsers(userDtos);
+        createdUsers.users += response.getCreatedIds().size();
+        return response;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class CreatedUsers {
+
+        public long users;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            users = 0;
+        }
+    }
+}
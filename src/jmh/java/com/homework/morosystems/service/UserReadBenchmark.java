@@ -0,0 +1,76 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.support.BenchmarkApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of {@link UserService#getUserById} with the user cache disabled and enabled.
+ * Reads are spread uniformly over all users, all of which fit in the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Threads(4)
+@Fork(1)
+public class UserReadBenchmark {
+
+    private static final int USERS = 5000;
+
+    /**
+     * Value of {@code spring.cache.type}.
+     */
+    @Param({"none", "caffeine"})
+    private String cacheType;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("spring.cache.type=" + cacheType);
+        userService = context.getBean(UserService.class);
+
+        List<UserCreateUpdateDto> userDtos = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            userDtos.add(new UserCreateUpdateDto()
+                    .name("User " + i)
+                    .username("user" + i)
+                    .password("secret12345"));
+        }
+        ids = userService.createUsers(userDtos).getCreatedIds().stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserGetDto getUserById() {
+        return userService.getUserById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+}
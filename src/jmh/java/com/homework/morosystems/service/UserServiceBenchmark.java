@@ -0,0 +1,130 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.model.UserPageResponseDto;
+import com.homework.morosystems.repository.UserRepository;
+import com.homework.morosystems.support.BenchmarkApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Average time of the {@link UserService} operations behind each endpoint, through the Spring proxies,
+ * transactions and Hibernate, on an in-memory H2 database with the user cache disabled.
+ * H2 keeps the database cost small, so a regression here points at the application rather than at the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final int USERS = 1000;
+    private static final int PAGE_SIZE = 20;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UserRepository userRepository;
+    private long[] ids;
+    private UserGetDto updatedUser;
+    private final List<Long> createdIds = new ArrayList<>();
+    private long nextUser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("spring.cache.type=none");
+        userService = context.getBean(UserService.class);
+        userRepository = context.getBean(UserRepository.class);
+
+        List<UserCreateUpdateDto> userDtos = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            userDtos.add(new UserCreateUpdateDto()
+                    .name("User " + i)
+                    .username("user" + i)
+                    .password("secret12345"));
+        }
+        ids = userService.createUsers(userDtos).getCreatedIds().stream().mapToLong(Long::longValue).toArray();
+        updatedUser = userService.getUserById(ids[0]);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteCreatedUsers() {
+        userRepository.deleteAllByIdInBatch(createdIds);
+        createdIds.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public UserGetDto getUserById() {
+        return userService.getUserById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public UserPageResponseDto getUsersPageable() {
+        return userService.getUsersPageable(ThreadLocalRandom.current().nextInt(USERS / PAGE_SIZE), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public UserGetDto createUser() {
+        UserGetDto created = userService.createUser(newUser());
+        createdIds.add(created.getId());
+        return created;
+    }
+
+    /**
+     * Renames the user without changing the password, so no hashing is involved.
+     */
+    @Benchmark
+    public UserGetDto updateUser() {
+        authenticateAs(updatedUser.getUsername());
+        return userService.updateUser(updatedUser.getId(), new UserCreateUpdateDto()
+                .name("User " + nextUser++)
+                .username(updatedUser.getUsername()));
+    }
+
+    @Benchmark
+    public void createAndDeleteUser() {
+        UserGetDto created = userService.createUser(newUser());
+        authenticateAs(created.getUsername());
+        userService.deleteUser(created.getId());
+    }
+
+    private UserCreateUpdateDto newUser() {
+        long user = nextUser++;
+        return new UserCreateUpdateDto()
+                .name("New user " + user)
+                .username("new" + user)
+                .password("secret12345");
+    }
+
+    private static void authenticateAs(String username) {
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                username, null, AuthorityUtils.NO_AUTHORITIES));
+    }
+}
@@ -0,0 +1,35 @@
+package com.homework.morosystems.support;
+
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * PostgreSQL container shared by all benchmarks of one JMH fork, for measurements that H2 cannot represent
+ * (offset scans, count queries, index types).
+ */
+public final class BenchmarkPostgres {
+
+    private static PostgreSQLContainer<?> container;
+
+    private BenchmarkPostgres() {
+    }
+
+    public static synchronized PostgreSQLContainer<?> container() {
+        if (container == null) {
+            container = new PostgreSQLContainer<>("postgres:16-alpine")
+                    .withDatabaseName("benchdb")
+                    .withUsername("bench")
+                    .withPassword("bench");
+            container.start();
+        }
+        return container;
+    }
+
+    public static Connection openConnection() throws SQLException {
+        PostgreSQLContainer<?> postgres = container();
+        return DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+}
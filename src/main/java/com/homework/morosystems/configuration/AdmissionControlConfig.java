@@ -0,0 +1,46 @@
+package com.homework.morosystems.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.homework.morosystems.mapper.ErrorMapper;
+import com.homework.morosystems.rest.AdmissionControlFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Admission control for the virtual thread mode ({@code spring.threads.virtual.enabled}).
+ * The limit defaults to the size of the connection pool and applies before authentication,
+ * which already needs a connection to load the user.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class AdmissionControlConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            @Value("${app.admission.max-concurrent:0}") int maxConcurrent,
+            @Value("${app.admission.max-wait:PT1S}") Duration maxWait,
+            // read from the configuration, the pool itself only settles its size when the first connection is taken
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            MeterRegistry meterRegistry,
+            ErrorMapper errorMapper,
+            ObjectMapper objectMapper) throws IOException {
+
+        int permits = maxConcurrent > 0 ? maxConcurrent : poolSize;
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(permits, maxWait, meterRegistry, errorMapper, objectMapper));
+        registration.addUrlPatterns("/users/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
@@ -0,0 +1,21 @@
+package com.homework.morosystems.configuration;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Enables the Spring cache abstraction. The cache provider is chosen with {@code spring.cache.type}.
+ * <p>
+ * The caching advice runs outside the transaction advice, so an eviction happens only after the commit
+ * and a cache hit does not open a transaction at all.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    /**
+     * {@link com.homework.morosystems.model.UserGetDto} by user id.
+     */
+    public static final String USERS_CACHE = "users";
+}
@@ -0,0 +1,32 @@
+package com.homework.morosystems.configuration;
+
+import com.homework.morosystems.rest.api.UsersApi;
+import jakarta.persistence.EntityManagerFactory;
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Support for the {@code fast-start} profile of {@code application.yml}, for instances started on demand,
+ * which shortens the time until the first request is served.
+ * <p>
+ * Under {@code spring.main.lazy-initialization} the user API, the schema migration and Hibernate stay eager,
+ * so that the first request does not pay for them; the rest (API docs and Swagger UI, the export and the change
+ * stream, actuator endpoints) is created on first use.
+ */
+@Configuration
+public class FastStartConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.liquibase", name = "skip-unchanged", havingValue = "true")
+    public static LiquibaseFingerprint liquibaseFingerprint() {
+        return new LiquibaseFingerprint();
+    }
+
+    @Bean
+    public static LazyInitializationExcludeFilter requestPathLazyInitializationExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(SpringLiquibase.class, EntityManagerFactory.class, UsersApi.class);
+    }
+}
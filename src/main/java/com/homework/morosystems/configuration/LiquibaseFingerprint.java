@@ -0,0 +1,140 @@
+package com.homework.morosystems.configuration;
+
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Skips Liquibase when the changelog has not changed since it was last applied in full to the database.
+ * Liquibase otherwise parses the whole changelog, takes its lock and compares every change set on each start.
+ * <p>
+ * The fingerprint is a SHA-256 hash of every file in the directory of the master changelog, together with
+ * the contexts and labels Liquibase runs with. It is stored in {@code changelog_fingerprint} after Liquibase
+ * has run successfully; a database without the table, or with a different hash, gets a regular Liquibase run.
+ * Change sets applied to the database by other means are not noticed.
+ */
+@Slf4j
+public class LiquibaseFingerprint implements BeanPostProcessor {
+
+    private static final String SELECT_HASH = "select hash from changelog_fingerprint where changelog = ?";
+    private static final String UPDATE_HASH = "update changelog_fingerprint set hash = ?, applied_at = ? where changelog = ?";
+    private static final String INSERT_HASH = "insert into changelog_fingerprint (changelog, hash, applied_at) values (?, ?, ?)";
+
+    // fingerprints of the Liquibase beans that are about to run, by bean name
+    private final Map<String, String> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof SpringLiquibase liquibase) {
+            String fingerprint = fingerprint(liquibase);
+            if (fingerprint == null) {
+                log.info("Cannot list the files of changelog {}, running Liquibase", liquibase.getChangeLog());
+            } else if (fingerprint.equals(appliedFingerprint(liquibase))) {
+                log.info("Changelog {} is unchanged since it was last applied, skipping Liquibase", liquibase.getChangeLog());
+                liquibase.setShouldRun(false);
+            } else {
+                pending.put(beanName, fingerprint);
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        String fingerprint = pending.remove(beanName);
+        if (fingerprint != null) {
+            store((SpringLiquibase) bean, fingerprint);
+        }
+        return bean;
+    }
+
+    /**
+     * @return the fingerprint, {@code null} when the files of the changelog cannot be listed, e.g. in a native image
+     */
+    static String fingerprint(SpringLiquibase liquibase) {
+        String changeLog = liquibase.getChangeLog();
+        String directory = changeLog.substring(changeLog.indexOf(':') + 1, changeLog.lastIndexOf('/') + 1);
+        ResourcePatternResolver resolver = ResourcePatternUtils.getResourcePatternResolver(liquibase.getResourceLoader());
+        try {
+            Resource[] resources = resolver.getResources(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + directory + "**/*");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((liquibase.getContexts() + "|" + liquibase.getLabelFilter() + "|").getBytes(StandardCharsets.UTF_8));
+            // named relative to the directory, so that the hash does not depend on where the classes are
+            Resource[] files = Arrays.stream(resources).filter(Resource::isReadable).toArray(Resource[]::new);
+            Arrays.sort(files, Comparator.comparing(resource -> relativeName(resource, directory)));
+            String masterName = changeLog.substring(changeLog.lastIndexOf('/') + 1);
+            if (Arrays.stream(files).noneMatch(file -> relativeName(file, directory).equals(masterName))) {
+                return null;
+            }
+            for (Resource file : files) {
+                digest.update(relativeName(file, directory).getBytes(StandardCharsets.UTF_8));
+                try (InputStream content = file.getInputStream()) {
+                    digest.update(content.readAllBytes());
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read changelog " + changeLog, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String relativeName(Resource resource, String directory) {
+        try {
+            String url = resource.getURL().toString();
+            return url.substring(url.lastIndexOf(directory) + directory.length());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String appliedFingerprint(SpringLiquibase liquibase) {
+        try {
+            return new JdbcTemplate(liquibase.getDataSource())
+                    .query(SELECT_HASH, rs -> rs.next() ? rs.getString(1) : null, liquibase.getChangeLog());
+        } catch (DataAccessException e) {
+            // not migrated yet
+            log.debug("No changelog fingerprint in the database", e);
+            return null;
+        }
+    }
+
+    private static void store(SpringLiquibase liquibase, String fingerprint) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(liquibase.getDataSource());
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            if (jdbcTemplate.update(UPDATE_HASH, fingerprint, now, liquibase.getChangeLog()) == 0) {
+                jdbcTemplate.update(INSERT_HASH, liquibase.getChangeLog(), fingerprint, now);
+            }
+        } catch (DuplicateKeyException e) {
+            // another instance applied the same changelog at the same time
+            log.debug("Changelog fingerprint stored concurrently", e);
+        } catch (DataAccessException e) {
+            // e.g. spring.liquibase.url with its own data source, closed once Liquibase is done
+            log.warn("Cannot store the fingerprint of changelog {}, the next start runs Liquibase again",
+                    liquibase.getChangeLog(), e);
+        }
+    }
+}
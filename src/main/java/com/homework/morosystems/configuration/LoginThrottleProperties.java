@@ -0,0 +1,39 @@
+package com.homework.morosystems.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Limits of authentication attempts, see {@link com.homework.morosystems.service.LoginThrottle}.
+ *
+ * @param maxTracked maximum number of client addresses, usernames and client-username pairs tracked at once, each
+ * @param idleTimeout state of a client or username not seen for this long is dropped
+ */
+@ConfigurationProperties("app.security.login-throttle")
+public record LoginThrottleProperties(@DefaultValue("true") boolean enabled,
+                                      @DefaultValue("100000") long maxTracked,
+                                      @DefaultValue("PT30M") Duration idleTimeout,
+                                      @DefaultValue Bucket client,
+                                      @DefaultValue Bucket username,
+                                      @DefaultValue Lockout lockout) {
+
+    /**
+     * @param capacity        attempts allowed in a burst
+     * @param refillPerSecond attempts allowed per second in the long run
+     */
+    public record Bucket(@DefaultValue("20") int capacity,
+                         @DefaultValue("5") double refillPerSecond) {
+    }
+
+    /**
+     * @param maxFailures consecutive failures of a client after which it is locked out of the username
+     * @param duration    lock duration after {@code maxFailures}, doubled with every further failure
+     * @param maxDuration upper bound of the lock duration
+     */
+    public record Lockout(@DefaultValue("5") int maxFailures,
+                          @DefaultValue("PT1S") Duration duration,
+                          @DefaultValue("PT15M") Duration maxDuration) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.homework.morosystems.configuration;
+
+import com.homework.morosystems.model.ErrorResponseDto;
+import com.homework.morosystems.model.UserBatchCreateResponseDto;
+import com.homework.morosystems.model.UserChangePageDto;
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.model.UserLookupRequestDto;
+import com.homework.morosystems.model.UserLookupResponseDto;
+import com.homework.morosystems.model.UserPageResponseDto;
+import com.homework.morosystems.repository.UserView;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Hints for the native image about what the application reaches by reflection or as a resource and Spring AOT
+ * does not see on its own.
+ * <p>
+ * The generated DTOs are bound by Jackson, also outside of controller methods, e.g. the error responses written
+ * by the servlet filters. The projections are created by Hibernate from constructor expressions of the queries.
+ */
+@Configuration
+@ImportRuntimeHints(NativeImageConfig.Hints.class)
+@RegisterReflectionForBinding({
+        UserGetDto.class,
+        UserCreateUpdateDto.class,
+        UserPageResponseDto.class,
+        UserBatchCreateResponseDto.class,
+        UserLookupRequestDto.class,
+        UserLookupResponseDto.class,
+        UserChangePageDto.class,
+        ErrorResponseDto.class
+})
+public class NativeImageConfig {
+
+    static class Hints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources().registerPattern(OpenApiSpecConfig.API_SPEC);
+            hints.reflection()
+                    .registerType(UserView.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+    }
+}
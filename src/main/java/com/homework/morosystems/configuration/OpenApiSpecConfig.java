@@ -9,13 +9,18 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class OpenApiSpecConfig {
 
+    /**
+     * Classpath location of the API specification the API is generated from.
+     */
+    static final String API_SPEC = "apispec/app-openapi3.yaml";
+
     @Bean
     public GroupedOpenApi externalOpenApi() {
         return GroupedOpenApi.builder()
                 .group("APP REST API")
                 .addOpenApiCustomizer(openApi -> {
                     OpenAPI parsed = new OpenAPIV3Parser()
-                            .read("src/main/resources/apispec/app-openapi3.yaml");
+                            .read(API_SPEC);
                     openApi.info(parsed.getInfo());
                     openApi.paths(parsed.getPaths());
                     openApi.components(parsed.getComponents());
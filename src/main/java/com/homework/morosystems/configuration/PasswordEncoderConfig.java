@@ -0,0 +1,20 @@
+package com.homework.morosystems.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Password encoder of both the servlet and the reactive stack, see {@link SecurityConfig} and {@link ReactiveSecurityConfig}.
+ */
+@Configuration
+@EnableConfigurationProperties(PasswordEncoderProperties.class)
+public class PasswordEncoderConfig {
+
+    @Bean
+    public PasswordEncoder passwordEncoder(PasswordEncoderProperties passwordEncoderProperties, MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(PasswordEncoderFactory.create(passwordEncoderProperties), meterRegistry);
+    }
+}
@@ -0,0 +1,43 @@
+package com.homework.morosystems.configuration;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
+
+public final class PasswordEncoderFactory {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    public static final String PBKDF2 = "pbkdf2";
+
+    private PasswordEncoderFactory() {
+    }
+
+    /**
+     * Creates an encoder that hashes with the configured algorithm and prefixes hashes with its id.
+     * Hashes stored without an id prefix are treated as BCrypt.
+     *
+     * @param properties algorithm and cost parameters
+     * @return the delegating encoder
+     */
+    public static DelegatingPasswordEncoder create(PasswordEncoderProperties properties) {
+        PasswordEncoderProperties.Argon2 argon2 = properties.argon2();
+        PasswordEncoderProperties.Pbkdf2 pbkdf2 = properties.pbkdf2();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(properties.bcrypt().strength());
+
+        Map<String, PasswordEncoder> encoders = Map.of(
+                BCRYPT, bcrypt,
+                ARGON2, new Argon2PasswordEncoder(argon2.saltLength(), argon2.hashLength(), argon2.parallelism(),
+                        argon2.memory(), argon2.iterations()),
+                PBKDF2, new Pbkdf2PasswordEncoder("", pbkdf2.saltLength(), pbkdf2.iterations(),
+                        Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(properties.algorithm(), encoders);
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return passwordEncoder;
+    }
+}
@@ -0,0 +1,34 @@
+package com.homework.morosystems.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Algorithm used to hash new passwords and the cost parameters of all supported algorithms.
+ * Hashes created with another algorithm or lower cost still match and are upgraded on the next login.
+ *
+ * @param algorithm one of {@code bcrypt}, {@code argon2}, {@code pbkdf2}
+ */
+@ConfigurationProperties("app.security.password-encoder")
+public record PasswordEncoderProperties(@DefaultValue("bcrypt") String algorithm,
+                                        @DefaultValue Bcrypt bcrypt,
+                                        @DefaultValue Argon2 argon2,
+                                        @DefaultValue Pbkdf2 pbkdf2) {
+
+    public record Bcrypt(@DefaultValue("10") int strength) {
+    }
+
+    /**
+     * @param memory memory cost in KiB
+     */
+    public record Argon2(@DefaultValue("16") int saltLength,
+                         @DefaultValue("32") int hashLength,
+                         @DefaultValue("1") int parallelism,
+                         @DefaultValue("16384") int memory,
+                         @DefaultValue("2") int iterations) {
+    }
+
+    public record Pbkdf2(@DefaultValue("16") int saltLength,
+                         @DefaultValue("310000") int iterations) {
+    }
+}
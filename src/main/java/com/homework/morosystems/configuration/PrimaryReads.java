@@ -0,0 +1,38 @@
+package com.homework.morosystems.configuration;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends the reads of the current thread to the primary, even in read-only transactions, for reads whose result
+ * outlives the request, e.g. a copy put in a cache: one read from a lagging replica would be served until it expires.
+ * <p>
+ * Unlike a read-write transaction, such a read does not count as a write for read-your-writes, so the user's
+ * other reads keep going to the replicas. Without read replicas every read goes to the primary anyway.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> REQUESTED = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    /**
+     * Runs the read with every connection it takes coming from the primary. The connection of a read-only
+     * transaction is taken at its first statement, so the transaction may also be started inside the read.
+     */
+    public static <T> T read(Supplier<T> read) {
+        if (REQUESTED.get() != null) {
+            return read.get();
+        }
+        REQUESTED.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            REQUESTED.remove();
+        }
+    }
+
+    static boolean isRequested() {
+        return REQUESTED.get() != null;
+    }
+}
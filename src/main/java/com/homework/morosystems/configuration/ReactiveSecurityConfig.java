@@ -0,0 +1,69 @@
+package com.homework.morosystems.configuration;
+
+import com.homework.morosystems.service.AuthenticationCache;
+import com.homework.morosystems.service.CachingReactiveAuthenticationManager;
+import com.homework.morosystems.service.PasswordHashingScheduler;
+import com.homework.morosystems.service.ReactiveDbUserDetailsService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link SecurityConfig} of the reactive profile: the same rules for the users API, with HTTP Basic credentials
+ * verified on the {@link PasswordHashingScheduler} and cached in {@link AuthenticationCache}.
+ * The login throttle is a servlet filter and is not part of this stack.
+ */
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         ReactiveAuthenticationManager authenticationManager) {
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .authorizeExchange(exchange -> exchange
+                        .pathMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll()
+                        .pathMatchers(HttpMethod.GET, "/users", "/users/**").permitAll()
+                        .pathMatchers(HttpMethod.POST, "/users").permitAll()
+                        .pathMatchers(HttpMethod.POST, "/users/lookup").permitAll()
+                        .pathMatchers(HttpMethod.PUT, "/users/**").authenticated()
+                        .pathMatchers(HttpMethod.DELETE, "/users/**").authenticated()
+                        .anyExchange().authenticated()
+                )
+                .httpBasic(basic -> basic.authenticationManager(authenticationManager))
+                .build();
+    }
+
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(ReactiveDbUserDetailsService userDetailsService,
+                                                                       PasswordEncoder passwordEncoder,
+                                                                       PasswordHashingScheduler passwordHashingScheduler,
+                                                                       AuthenticationCache authenticationCache) {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+        // outdated hashes are re-encoded right after the verification, on the same scheduler
+        authenticationManager.setUserDetailsPasswordService(userDetailsService);
+        authenticationManager.setScheduler(passwordHashingScheduler.scheduler());
+
+        ReactiveAuthenticationManager cachingManager =
+                new CachingReactiveAuthenticationManager(authenticationManager, authenticationCache);
+        // a full hashing queue is an overload, not a failed authentication
+        return authentication -> cachingManager.authenticate(authentication)
+                .onErrorMap(RejectedExecutionException.class,
+                        e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, try again later", e));
+    }
+}
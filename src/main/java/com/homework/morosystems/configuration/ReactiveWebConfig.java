@@ -0,0 +1,36 @@
+package com.homework.morosystems.configuration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Server of the reactive profile. Spring Boot would serve WebFlux on Tomcat, which the servlet stack puts on
+ * the classpath, so the Netty server is declared explicitly: the requests are then handled on its event loops.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(ObjectProvider<NettyServerCustomizer> serverCustomizers) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.getServerCustomizers().addAll(serverCustomizers.orderedStream().toList());
+        return factory;
+    }
+
+    /**
+     * Registers the {@code reactor.netty.http.server.*} metrics, e.g. the open connections, the counterpart
+     * of the {@code tomcat.*} metrics of the servlet stack.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.reactive", name = "server-metrics", havingValue = "true")
+    public NettyServerCustomizer serverMetricsCustomizer() {
+        // a single URI tag, http.server.requests already reports the requests per route
+        return httpServer -> httpServer.metrics(true, uri -> "/users");
+    }
+}
@@ -0,0 +1,78 @@
+package com.homework.morosystems.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to replicas ({@code app.datasource.read-replicas}), everything else,
+ * Liquibase included, to the primary configured under {@code spring.datasource}.
+ * <p>
+ * The application data source is a {@link LazyConnectionDataSourceProxy}: it takes the physical connection
+ * only at the first statement, once the transaction manager marked the connection read-only,
+ * and then takes it from {@link ReplicaRoutingDataSource} instead of the primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.read-replicas", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaConfig {
+
+    private static final long MAX_READ_YOUR_WRITES_USERS = 100_000;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             ReadReplicaProperties properties,
+                                                             MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicaPools = new ArrayList<>();
+        for (int i = 0; i < properties.replicas().size(); i++) {
+            ReadReplicaProperties.Replica replica = properties.replicas().get(i);
+            HikariDataSource pool = new HikariDataSource();
+            // same pool settings as the primary, except for the connection
+            primaryDataSource.copyStateTo(pool);
+            pool.setPoolName("replica-" + i);
+            pool.setJdbcUrl(replica.url());
+            pool.setUsername(replica.username());
+            pool.setPassword(replica.password());
+            pool.setReadOnly(true);
+            // a replica that went down since the last health check delays a read by at most one interval
+            pool.setConnectionTimeout(Math.min(primaryDataSource.getConnectionTimeout(),
+                    properties.healthCheckInterval().toMillis()));
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicaPools.add(pool);
+        }
+
+        ReadYourWrites readYourWrites = properties.readYourWritesWindow().isZero()
+                ? null
+                : new ReadYourWrites(properties.readYourWritesWindow(), MAX_READ_YOUR_WRITES_USERS);
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaPools, properties, readYourWrites, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource =
+                new LazyConnectionDataSourceProxy(replicaRoutingDataSource.trackWrites(primaryDataSource));
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,34 @@
+package com.homework.morosystems.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Replicas that serve read-only transactions, see {@link ReadReplicaConfig}.
+ *
+ * @param maxLag               replicas further behind the primary are not used, zero disables the check
+ * @param readYourWritesWindow read-only transactions of a user go to the primary for this long after the user's
+ *                             own write, zero disables it
+ */
+@ConfigurationProperties("app.datasource.read-replicas")
+public record ReadReplicaProperties(@DefaultValue("false") boolean enabled,
+                                    @DefaultValue List<Replica> replicas,
+                                    @DefaultValue("round-robin") Selection selection,
+                                    @DefaultValue("PT5S") Duration healthCheckInterval,
+                                    @DefaultValue("PT10S") Duration maxLag,
+                                    @DefaultValue("PT5S") Duration readYourWritesWindow) {
+
+    public record Replica(String url, String username, String password) {
+    }
+
+    public enum Selection {
+        ROUND_ROBIN,
+        /**
+         * Replica with the fewest connections in use.
+         */
+        LEAST_CONNECTIONS
+    }
+}
@@ -0,0 +1,78 @@
+package com.homework.morosystems.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Remembers which authenticated users wrote recently, so that their reads can be served by the primary
+ * until the replicas caught up. A transaction that is not read-only counts as a write once it commits,
+ * and the window starts then; a rolled back one does not count. Reads sent to the primary by
+ * {@link PrimaryReads} do not count either. Anonymous requests are not tracked.
+ */
+class ReadYourWrites {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    ReadYourWrites(Duration window, long maxUsers) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxUsers)
+                .build();
+    }
+
+    /**
+     * @return the data source, recording the current user when the transaction of a connection it hands out commits
+     */
+    DataSource trackWrites(DataSource primary) {
+        return new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                recordWriteOnCommit();
+                return super.getConnection();
+            }
+        };
+    }
+
+    boolean isRecentWriter() {
+        String username = currentUsername();
+        return username != null && recentWriters.getIfPresent(username) != null;
+    }
+
+    private void recordWriteOnCommit() {
+        String username = currentUsername();
+        if (username == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // auto-commit, every statement is committed as it runs
+            recentWriters.put(username, Boolean.TRUE);
+            return;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentWriters.put(username, Boolean.TRUE);
+                }
+            });
+        }
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)
+                ? authentication.getName()
+                : null;
+    }
+}
@@ -0,0 +1,222 @@
+package com.homework.morosystems.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections to a healthy replica, selected round-robin or by the fewest connections in use,
+ * and falls back to the primary when no replica is healthy, when the replica fails to connect, when
+ * the current user wrote recently ({@link ReadYourWrites}) or when the read asked for it ({@link PrimaryReads}).
+ * <p>
+ * Replicas are checked every {@code healthCheckInterval}: a replica is healthy when it accepts a connection
+ * and, on PostgreSQL, its replay is at most {@code maxLag} behind. Until the first check passes,
+ * all reads go to the primary.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private static final String METRIC_PREFIX = "app.datasource";
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    // a replica that replayed everything it received is not lagging, even if the primary was idle for a while
+    private static final String POSTGRES_LAG_QUERY = """
+            select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                        else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end""";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadReplicaProperties.Selection selection;
+    private final Duration maxLag;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter fallbackCounter;
+    private final Counter readYourWritesCounter;
+    private final Counter requestedCounter;
+    private final ScheduledExecutorService healthChecker;
+
+    ReplicaRoutingDataSource(DataSource primary,
+                             List<HikariDataSource> replicaPools,
+                             ReadReplicaProperties properties,
+                             ReadYourWrites readYourWrites,
+                             MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.selection = properties.selection();
+        this.maxLag = properties.maxLag();
+        this.readYourWrites = readYourWrites;
+        this.replicas = replicaPools.stream()
+                .map(pool -> new Replica(pool, meterRegistry))
+                .toList();
+
+        this.fallbackCounter = readCounter(meterRegistry, "primary", "fallback");
+        this.readYourWritesCounter = readCounter(meterRegistry, "primary", "read-your-writes");
+        this.requestedCounter = readCounter(meterRegistry, "primary", "requested");
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-health-");
+        threadFactory.setDaemon(true);
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long intervalNanos = properties.healthCheckInterval().toNanos();
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, 0, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (PrimaryReads.isRequested()) {
+            requestedCounter.increment();
+            return primary.getConnection();
+        }
+        if (readYourWrites != null && readYourWrites.isRecentWriter()) {
+            readYourWritesCounter.increment();
+            return primary.getConnection();
+        }
+
+        Replica replica = select();
+        if (replica == null) {
+            fallbackCounter.increment();
+            return primary.getConnection();
+        }
+
+        try {
+            Connection connection = replica.pool.getConnection();
+            replica.readCounter.increment();
+            return connection;
+        } catch (SQLException e) {
+            replica.markUnhealthy(e);
+            fallbackCounter.increment();
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * @return the primary, recording writers for read-your-writes if enabled
+     */
+    DataSource trackWrites(DataSource primary) {
+        return readYourWrites != null ? readYourWrites.trackWrites(primary) : primary;
+    }
+
+    /**
+     * Replica pools use their configured credentials, so a connection for other credentials comes from the primary.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * @return a healthy replica, or null if there is none
+     */
+    private Replica select() {
+        List<Replica> healthy = replicas.stream()
+                .filter(replica -> replica.healthy)
+                .toList();
+        if (healthy.isEmpty()) {
+            return null;
+        }
+
+        return switch (selection) {
+            case ROUND_ROBIN -> healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+            case LEAST_CONNECTIONS -> healthy.stream()
+                    .min(Comparator.comparingInt(Replica::activeConnections))
+                    .orElseThrow();
+        };
+    }
+
+    void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection()) {
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    replica.markUnhealthy(null);
+                    continue;
+                }
+                replica.lagSeconds = lagSeconds(connection);
+                if (!maxLag.isZero() && replica.lagSeconds > maxLag.toMillis() / 1000.0) {
+                    replica.markUnhealthy(null);
+                } else {
+                    replica.markHealthy();
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.markUnhealthy(e);
+            }
+        }
+    }
+
+    private double lagSeconds(Connection connection) throws SQLException {
+        if (maxLag.isZero() || !"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(POSTGRES_LAG_QUERY)) {
+            return resultSet.next() ? resultSet.getDouble(1) : 0;
+        }
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder(METRIC_PREFIX + ".read.connections")
+                .description("Connections handed out for read-only transactions")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        healthChecker.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+        private final HikariDataSource pool;
+        private final Counter readCounter;
+        private volatile boolean healthy;
+        private volatile double lagSeconds;
+
+        private Replica(HikariDataSource pool, MeterRegistry meterRegistry) {
+            this.pool = pool;
+            this.readCounter = readCounter(meterRegistry, pool.getPoolName(), "replica");
+            Gauge.builder(METRIC_PREFIX + ".replica.healthy", this, replica -> replica.healthy ? 1 : 0)
+                    .tag("replica", pool.getPoolName())
+                    .register(meterRegistry);
+            Gauge.builder(METRIC_PREFIX + ".replica.lag", this, replica -> replica.lagSeconds)
+                    .tag("replica", pool.getPoolName())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+
+        private int activeConnections() {
+            HikariPoolMXBean poolBean = pool.getHikariPoolMXBean();
+            return poolBean != null ? poolBean.getActiveConnections() : 0;
+        }
+
+        private void markHealthy() {
+            if (!healthy) {
+                log.info("Replica {} is healthy, lag {} s", pool.getPoolName(), lagSeconds);
+                healthy = true;
+            }
+        }
+
+        private void markUnhealthy(Exception e) {
+            if (healthy) {
+                log.warn("Replica {} is unhealthy, lag {} s: {}", pool.getPoolName(), lagSeconds, e != null ? e.toString() : "check failed");
+                healthy = false;
+            }
+        }
+    }
+}
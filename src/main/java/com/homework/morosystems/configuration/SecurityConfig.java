@@ -1,39 +1,70 @@
 package com.homework.morosystems.configuration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.homework.morosystems.mapper.ErrorMapper;
+import com.homework.morosystems.rest.LoginThrottleFilter;
+import com.homework.morosystems.service.AuthenticationCache;
+import com.homework.morosystems.service.CachingAuthenticationProvider;
+import com.homework.morosystems.service.LoginThrottle;
+import com.homework.morosystems.service.PasswordRehashService;
+import com.homework.morosystems.service.PasswordUpgradingAuthenticationProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Configuration
+@Profile("!reactive")
 @EnableWebSecurity
+@EnableConfigurationProperties(LoginThrottleProperties.class)
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           LoginThrottle loginThrottle,
+                                           AuthenticationCache authenticationCache,
+                                           ErrorMapper errorMapper,
+                                           ObjectMapper objectMapper) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers( "/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/users/export").authenticated()
                         .requestMatchers(HttpMethod.GET, "/users", "/users/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/users").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/users/lookup").permitAll()
                         .requestMatchers(HttpMethod.PUT, "/users/**").authenticated()
                         .requestMatchers(HttpMethod.DELETE, "/users/**").authenticated()
                         .anyRequest().authenticated()
                 )
-                .httpBasic(Customizer.withDefaults());
+                .httpBasic(Customizer.withDefaults())
+                // not a bean, so that it only runs in the security chain and not as a plain servlet filter
+                .addFilterBefore(new LoginThrottleFilter(loginThrottle, authenticationCache, errorMapper, objectMapper),
+                        BasicAuthenticationFilter.class);
 
         return http.build();
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
+                                                         PasswordEncoder passwordEncoder,
+                                                         AuthenticationCache authenticationCache,
+                                                         PasswordRehashService passwordRehashService) {
+        DaoAuthenticationProvider daoAuthenticationProvider =
+                new PasswordUpgradingAuthenticationProvider(passwordEncoder, passwordRehashService);
+        daoAuthenticationProvider.setUserDetailsService(userDetailsService);
+        return new CachingAuthenticationProvider(daoAuthenticationProvider, authenticationCache);
     }
 }
@@ -0,0 +1,51 @@
+package com.homework.morosystems.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long password verification takes, which is most of the cost of an uncached login.
+ * Hashing is timed by {@link com.homework.morosystems.service.PasswordHashingExecutor} instead.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private static final String METRIC_NAME = "app.password.matching.duration";
+
+    private final PasswordEncoder delegate;
+    private final Timer matchedTimer;
+    private final Timer mismatchedTimer;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.matchedTimer = matchingTimer(meterRegistry, "match");
+        this.mismatchedTimer = matchingTimer(meterRegistry, "mismatch");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        boolean matches = delegate.matches(rawPassword, encodedPassword);
+        (matches ? matchedTimer : mismatchedTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static Timer matchingTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder(METRIC_NAME)
+                .description("Time spent verifying a password against its stored hash")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
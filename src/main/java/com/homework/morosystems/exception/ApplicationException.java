@@ -1,17 +1,26 @@
 package com.homework.morosystems.exception;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 
+/**
+ * Failure reported to the client with the given status. Client errors (4xx) are expected outcomes such as
+ * a missing user or a taken username, so they skip capturing the stack trace, which is most of the cost
+ * of throwing. Server errors and exceptions without a status keep their stack trace.
+ */
 @Getter
-@RequiredArgsConstructor
 public class ApplicationException extends RuntimeException  {
     private final String errorMsg;
     private final HttpStatus httpStatus;
 
+    public ApplicationException(String errorMsg, HttpStatus httpStatus) {
+        super(null, null, false, httpStatus == null || !httpStatus.is4xxClientError());
+        this.errorMsg = errorMsg;
+        this.httpStatus = httpStatus;
+    }
+
     @Override
-    public final synchronized String toString() {
+    public final String toString() {
         return "{httpStatus=%s, errorMsg=%s}"
                 .formatted(this.httpStatus != null ? this.httpStatus.value() : null, errorMsg);
     }
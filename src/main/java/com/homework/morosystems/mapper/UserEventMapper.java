@@ -0,0 +1,35 @@
+package com.homework.morosystems.mapper;
+
+import com.homework.morosystems.model.UserChangeDto;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.repository.UserEventEntity;
+import com.homework.morosystems.repository.UserEventType;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+@Mapper
+public interface UserEventMapper {
+
+    @Mapping(target = "occurredAt", source = "createdAt")
+    @Mapping(target = "user", source = "event")
+    UserChangeDto toDto(UserEventEntity event);
+
+    default UserGetDto toUser(UserEventEntity event) {
+        if (event.getType() == UserEventType.DELETED) {
+            return null;
+        }
+        return new UserGetDto()
+                .id(event.getUserId())
+                .name(event.getName())
+                .username(event.getUsername())
+                .version(event.getUserVersion());
+    }
+
+    default OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant != null ? instant.atOffset(ZoneOffset.UTC) : null;
+    }
+}
@@ -3,6 +3,7 @@ package com.homework.morosystems.mapper;
 import com.homework.morosystems.model.UserCreateUpdateDto;
 import com.homework.morosystems.model.UserGetDto;
 import com.homework.morosystems.repository.UserEntity;
+import com.homework.morosystems.repository.UserView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
@@ -12,11 +13,15 @@ public interface UserMapper {
 
     UserGetDto toDto(UserEntity userEntity);
 
+    UserGetDto toDto(UserView userView);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "password", ignore = true)
+    @Mapping(target = "version", ignore = true)
     UserEntity toEntity(UserCreateUpdateDto dto);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "password", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void updateEntityFromDto(UserCreateUpdateDto dto, @MappingTarget UserEntity entity);
 }
@@ -0,0 +1,58 @@
+package com.homework.morosystems.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * R2DBC counterpart of {@link UserEventRepository}: appends to the {@code user_events} outbox in the transaction
+ * of the change. The events are published by the relay of the servlet stack, ids are drawn one at a time like there.
+ */
+public interface ReactiveUserEventRepository extends Repository<UserEventRow, Long> {
+
+    /**
+     * @param type        name of the {@link UserEventType}
+     * @param name        state of the user after the change, {@code null} for {@link UserEventType#DELETED}
+     * @param username    same as {@code name}
+     * @param userVersion same as {@code name}
+     */
+    @Modifying
+    @Query("""
+            insert into user_events (id, type, user_id, name, username, user_version, created_at)
+            values (nextval('user_events_id_seq'), :type, :userId, :name, :username, :userVersion, :createdAt)""")
+    Mono<Integer> insert(@Param("type") String type,
+                         @Param("userId") Long userId,
+                         @Param("name") String name,
+                         @Param("username") String username,
+                         @Param("userVersion") Long userVersion,
+                         @Param("createdAt") Instant createdAt);
+
+    /**
+     * Batch variant of {@link #insert}, the arrays hold one element per user.
+     */
+    @Modifying
+    @Query("""
+            insert into user_events (id, type, user_id, name, username, user_version, created_at)
+            select nextval('user_events_id_seq'), :type, u.user_id, u.name, u.username, u.user_version, :createdAt
+            from unnest(cast(:userIds as bigint[]), cast(:names as varchar[]), cast(:usernames as varchar[]),
+                        cast(:userVersions as bigint[]))
+                as u(user_id, name, username, user_version)""")
+    Mono<Integer> insertAll(@Param("type") String type,
+                            @Param("userIds") Long[] userIds,
+                            @Param("names") String[] names,
+                            @Param("usernames") String[] usernames,
+                            @Param("userVersions") Long[] userVersions,
+                            @Param("createdAt") Instant createdAt);
+
+    /**
+     * Same as {@link UserEventRepository#getRevision()}.
+     */
+    @Query("""
+            select cast(r.last_seq as varchar) || '-' || cast((select count(*) from user_events e where e.seq is null) as varchar)
+            from user_events_relay r where r.id = 1""")
+    Mono<String> getRevision();
+}
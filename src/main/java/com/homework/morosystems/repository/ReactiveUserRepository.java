@@ -0,0 +1,114 @@
+package com.homework.morosystems.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * R2DBC counterpart of {@link UserRepository} for the reactive profile. Reads return the same {@link UserView}
+ * projection, so the password hash is only read to authenticate.
+ * <p>
+ * New ids are drawn from {@code users_id_seq} one per user. Hibernate takes a value of the sequence as the top
+ * of a block of {@code allocationSize} ids, so a value drawn here is never part of a block the servlet stack uses;
+ * the ids below it stay unused.
+ */
+public interface ReactiveUserRepository extends Repository<UserRow, Long> {
+
+    Mono<Boolean> existsByUsername(String username);
+
+    Mono<UserRow> findByUsername(String username);
+
+    /**
+     * Replaces the password hash only if it still equals {@code oldPassword}, so that a concurrent password change wins.
+     *
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("update users set password = :newPassword where username = :username and password = :oldPassword")
+    Mono<Integer> updatePassword(@Param("username") String username,
+                                 @Param("oldPassword") String oldPassword,
+                                 @Param("newPassword") String newPassword);
+
+    @Query("select id, name, username, version from users where id = :id")
+    Mono<UserView> findViewById(@Param("id") Long id);
+
+    /**
+     * Same as {@link #findViewById(Long)}, but locks the row until the end of the transaction,
+     * so that the update that follows is applied to the version that was read.
+     */
+    @Query("select id, name, username, version from users where id = :id for update")
+    Mono<UserView> lockViewById(@Param("id") Long id);
+
+    @Query("select id, name, username, version from users where id in (:ids)")
+    Flux<UserView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select id, name, username, version from users order by id limit :limit offset :offset")
+    Flux<UserView> findAllViews(@Param("offset") long offset, @Param("limit") int limit);
+
+    @Query("select count(*) from users")
+    Mono<Long> countAll();
+
+    /**
+     * Keyset pagination, seeks on the primary key instead of skipping rows with an offset.
+     */
+    @Query("select id, name, username, version from users where id > :id order by id limit :limit")
+    Flux<UserView> findViewsByIdGreaterThan(@Param("id") long id, @Param("limit") int limit);
+
+    /**
+     * Same as {@link UserRepository#search}: username or name matched case-insensitively against a {@code LIKE} pattern,
+     * with wildcards that should match literally escaped with {@code !}.
+     */
+    @Query("""
+            select id, name, username, version from users
+            where (username ilike :pattern escape '!' or name ilike :pattern escape '!')
+              and id > :afterId
+            order by id
+            limit :limit""")
+    Flux<UserView> search(@Param("pattern") String pattern, @Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Query("select username from users where username in (:usernames)")
+    Flux<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("""
+            insert into users (id, name, username, password)
+            values (nextval('users_id_seq'), :name, :username, :password)
+            returning id, name, username, version""")
+    Mono<UserView> insert(@Param("name") String name, @Param("username") String username, @Param("password") String password);
+
+    /**
+     * Inserts all users with a single statement, the arrays hold one element per user.
+     */
+    @Query("""
+            insert into users (id, name, username, password)
+            select nextval('users_id_seq'), u.name, u.username, u.password
+            from unnest(cast(:names as varchar[]), cast(:usernames as varchar[]), cast(:passwords as varchar[]))
+                as u(name, username, password)
+            returning id, name, username, version""")
+    Flux<UserView> insertAll(@Param("names") String[] names,
+                             @Param("usernames") String[] usernames,
+                             @Param("passwords") String[] passwords);
+
+    /**
+     * Writes the user and increments its version. The row must have been locked by {@link #lockViewById(Long)}.
+     *
+     * @param password new password hash, {@code null} to keep the current one
+     */
+    @Query("""
+            update users
+            set name = :name, username = :username, password = coalesce(:password, password), version = version + 1
+            where id = :id
+            returning id, name, username, version""")
+    Mono<UserView> update(@Param("id") Long id,
+                          @Param("name") String name,
+                          @Param("username") String username,
+                          @Param("password") String password);
+
+    @Modifying
+    @Query("delete from users where id = :id")
+    Mono<Integer> deleteById(@Param("id") Long id);
+}
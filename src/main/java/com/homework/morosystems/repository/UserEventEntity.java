@@ -0,0 +1,62 @@
+package com.homework.morosystems.repository;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Change of a user, written in the same transaction as the change itself. Holds the state of the user
+ * after the change; name, username and version are empty for {@link UserEventType#DELETED}.
+ */
+@Entity
+@Table(name = "user_events")
+@Getter
+@Setter
+public class UserEventEntity {
+
+    /**
+     * Drawn from the sequence when the event is written, one at a time: the relay publishes events
+     * in id order, and ids reserved in blocks by several instances would not follow the order in which changes
+     * of the same user committed.
+     */
+    @Id
+    @SequenceGenerator(name = "user_events_id_seq", sequenceName = "user_events_id_seq", allocationSize = 1)
+    @GeneratedValue(generator = "user_events_id_seq", strategy = GenerationType.SEQUENCE)
+    @Column(name = "id")
+    private Long id;
+
+    /**
+     * Position in the change feed, null until published by the relay.
+     */
+    @Column(name = "seq")
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private UserEventType type;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(length = 100)
+    private String name;
+
+    @Column(length = 100)
+    private String username;
+
+    @Column(name = "user_version")
+    private Long userVersion;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
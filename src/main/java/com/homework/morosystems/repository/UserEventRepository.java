@@ -0,0 +1,45 @@
+package com.homework.morosystems.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface UserEventRepository extends JpaRepository<UserEventEntity, Long> {
+
+    /**
+     * Published events after the given position, seeks on the unique index of {@code seq}.
+     */
+    List<UserEventEntity> findBySeqGreaterThanOrderBySeqAsc(long seq, Limit limit);
+
+    @Query("select e from UserEventEntity e where e.seq is null order by e.id")
+    List<UserEventEntity> findUnpublished(Limit limit);
+
+    @Query(value = "select last_seq from user_events_relay where id = 1", nativeQuery = true)
+    long getLastSeq();
+
+    /**
+     * Position of the change feed followed by the number of events not yet published, in one statement so that
+     * both come from the same snapshot. Every committed change either adds an unpublished event or, once relayed,
+     * advances the position, so the value differs after every change. Reads a single row and the partial index
+     * of unpublished events, whatever the size of the {@code users} table.
+     */
+    @Query(value = """
+            select cast(r.last_seq as varchar) || '-' || cast((select count(*) from user_events e where e.seq is null) as varchar)
+            from user_events_relay r where r.id = 1""", nativeQuery = true)
+    String getRevision();
+
+    /**
+     * Same as {@link #getLastSeq()}, but locks the row until the end of the transaction,
+     * so that only one relay assigns positions at a time.
+     */
+    @Query(value = "select last_seq from user_events_relay where id = 1 for update", nativeQuery = true)
+    long lockLastSeq();
+
+    @Modifying
+    @Query(value = "update user_events_relay set last_seq = :lastSeq where id = 1", nativeQuery = true)
+    int updateLastSeq(@Param("lastSeq") long lastSeq);
+}
@@ -0,0 +1,21 @@
+package com.homework.morosystems.repository;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+/**
+ * Row of the {@code user_events} outbox as written by {@link ReactiveUserEventRepository},
+ * the R2DBC counterpart of {@link UserEventEntity}.
+ */
+@Table("user_events")
+public record UserEventRow(@Id Long id,
+                           Long seq,
+                           String type,
+                           Long userId,
+                           String name,
+                           String username,
+                           Long userVersion,
+                           Instant createdAt) {
+}
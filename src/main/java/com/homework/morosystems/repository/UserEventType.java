@@ -0,0 +1,7 @@
+package com.homework.morosystems.repository;
+
+public enum UserEventType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
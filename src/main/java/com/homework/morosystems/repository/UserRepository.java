@@ -1,8 +1,23 @@
 package com.homework.morosystems.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
 
@@ -10,4 +25,71 @@ public interface UserRepository extends JpaRepository<UserEntity, Long> {
 
     Optional<UserEntity> findByUsername(String username);
 
+    /**
+     * Replaces the password hash only if it still equals {@code oldPassword}, so that a concurrent password change wins.
+     *
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("update UserEntity u set u.password = :newPassword where u.username = :username and u.password = :oldPassword")
+    int updatePassword(@Param("username") String username,
+                       @Param("oldPassword") String oldPassword,
+                       @Param("newPassword") String newPassword);
+
+    /**
+     * Case-insensitive match of a {@code LIKE} pattern against username or name, backed by the trigram indexes
+     * on PostgreSQL. Wildcards that should match literally must be escaped with {@code !}.
+     */
+    @Query("""
+            select new com.homework.morosystems.repository.UserView(u.id, u.name, u.username, u.version)
+            from UserEntity u
+            where (u.username ilike :pattern escape '!' or u.name ilike :pattern escape '!')
+              and u.id > :afterId
+            order by u.id""")
+    List<UserView> search(@Param("pattern") String pattern, @Param("afterId") long afterId, Limit limit);
+
+    @Query("select u.username from UserEntity u where u.username in :usernames")
+    Set<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("select new com.homework.morosystems.repository.UserView(u.id, u.name, u.username, u.version) from UserEntity u where u.id = :id")
+    Optional<UserView> findViewById(@Param("id") Long id);
+
+    /**
+     * Reads the users with the given ids in one query. The in-list is padded to the next power of two
+     * ({@code hibernate.query.in_clause_parameter_padding}), so lookups of any size share a few statements.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.homework.morosystems.repository.UserView(u.id, u.name, u.username, u.version) from UserEntity u where u.id in :ids")
+    List<UserView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "select new com.homework.morosystems.repository.UserView(u.id, u.name, u.username, u.version) from UserEntity u",
+            countQuery = "select count(u) from UserEntity u")
+    Page<UserView> findAllViews(Pageable pageable);
+
+    /**
+     * Same as {@link #findAllViews(Pageable)} but without the count query.
+     */
+    @Query("select new com.homework.morosystems.repository.UserView(u.id, u.name, u.username, u.version) from UserEntity u")
+    Slice<UserView> findAllViewsBy(Pageable pageable);
+
+    /**
+     * Keyset pagination, seeks on the primary key instead of skipping rows with an offset.
+     */
+    @Query("select new com.homework.morosystems.repository.UserView(u.id, u.name, u.username, u.version) from UserEntity u where u.id > :id order by u.id")
+    List<UserView> findViewsByIdGreaterThan(@Param("id") long id, Limit limit);
+
+    /**
+     * Streams all users ordered by id over a server-side cursor. Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.homework.morosystems.repository.UserView(u.id, u.name, u.username, u.version) from UserEntity u order by u.id")
+    Stream<UserView> streamAllViews();
+
+    /**
+     * Streams all usernames over a server-side cursor. Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select u.username from UserEntity u")
+    Stream<String> streamAllUsernames();
+
 }
@@ -0,0 +1,12 @@
+package com.homework.morosystems.repository;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Row of the {@code users} table as read by {@link ReactiveUserRepository}, the R2DBC counterpart of {@link UserEntity}.
+ */
+@Table("users")
+public record UserRow(@Id Long id, String name, String username, String password, @Version Long version) {
+}
@@ -0,0 +1,8 @@
+package com.homework.morosystems.repository;
+
+/**
+ * Read-only projection of a user with the columns the API returns. Selected with a constructor expression,
+ * so the password hash is not read and no entity is added to the persistence context.
+ */
+public record UserView(Long id, String name, String username, Long version) {
+}
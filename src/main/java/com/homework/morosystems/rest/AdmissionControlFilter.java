@@ -0,0 +1,89 @@
+package com.homework.morosystems.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.homework.morosystems.exception.ApplicationException;
+import com.homework.morosystems.mapper.ErrorMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of requests processed at once. With virtual threads nothing else bounds the concurrency,
+ * so without it every request beyond the size of the connection pool would just wait inside Hikari,
+ * holding its memory and running into the pool's connection timeout.
+ * <p>
+ * Requests wait for a permit up to {@code maxWait} and are then rejected with 503.
+ */
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String METRIC_PREFIX = "app.admission";
+    private static final ApplicationException BUSY =
+            new ApplicationException("Server is busy, retry later", HttpStatus.SERVICE_UNAVAILABLE);
+
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final Counter rejectedCounter;
+    private final byte[] busyResponse;
+
+    public AdmissionControlFilter(int maxConcurrent, Duration maxWait, MeterRegistry meterRegistry,
+                                  ErrorMapper errorMapper, ObjectMapper objectMapper) throws IOException {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.busyResponse = objectMapper.writeValueAsBytes(errorMapper.toErrorResponse(BUSY));
+
+        Gauge.builder(METRIC_PREFIX + ".available", permits, Semaphore::availablePermits)
+                .description("Requests that can still be admitted without waiting")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".waiting", permits, Semaphore::getQueueLength)
+                .description("Requests waiting for admission")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder(METRIC_PREFIX + ".rejected")
+                .description("Requests rejected because no permit became available in time")
+                .register(meterRegistry);
+        log.info("Admission control enabled, {} concurrent requests", maxConcurrent);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        if (!acquire()) {
+            rejectedCounter.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(busyResponse);
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean acquire() {
+        try {
+            return permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.homework.morosystems.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.homework.morosystems.exception.ApplicationException;
+import com.homework.morosystems.mapper.ErrorMapper;
+import com.homework.morosystems.service.AuthenticationCache;
+import com.homework.morosystems.service.LoginThrottle;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects HTTP Basic authentication attempts with 429 when {@link LoginThrottle} does not allow them.
+ * Runs in the security filter chain before {@code BasicAuthenticationFilter}, so a rejected attempt
+ * costs neither a database lookup nor a password hash check.
+ * <p>
+ * Credentials found in {@link AuthenticationCache} cost neither of them either, so they pass without
+ * being charged; only attempts that will reach the database are throttled. The client is
+ * {@link HttpServletRequest#getRemoteAddr()}, which the forwarded-headers support of the server
+ * resolves to the original client behind a trusted proxy.
+ */
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+    private static final String BASIC_PREFIX = "Basic ";
+    private static final ApplicationException TOO_MANY_ATTEMPTS =
+            new ApplicationException("Too many authentication attempts, retry later", HttpStatus.TOO_MANY_REQUESTS);
+
+    private final LoginThrottle loginThrottle;
+    private final AuthenticationCache authenticationCache;
+    private final byte[] tooManyAttemptsResponse;
+
+    public LoginThrottleFilter(LoginThrottle loginThrottle, AuthenticationCache authenticationCache,
+                               ErrorMapper errorMapper, ObjectMapper objectMapper) throws IOException {
+        this.loginThrottle = loginThrottle;
+        this.authenticationCache = authenticationCache;
+        this.tooManyAttemptsResponse = objectMapper.writeValueAsBytes(errorMapper.toErrorResponse(TOO_MANY_ATTEMPTS));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String[] credentials = basicCredentials(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (credentials == null || authenticationCache.get(credentials[0], credentials[1]).isPresent()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = loginThrottle.tryAttempt(request.getRemoteAddr(), credentials[0]);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(tooManyAttemptsResponse);
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * @return the username and password of HTTP Basic credentials, or null if the header holds none;
+     * malformed headers are left to {@code BasicAuthenticationFilter}
+     */
+    private static String[] basicCredentials(String header) {
+        if (header == null || !header.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length())) {
+            return null;
+        }
+
+        try {
+            String credentials = new String(Base64.getDecoder().decode(header.substring(BASIC_PREFIX.length()).trim()),
+                    StandardCharsets.UTF_8);
+            int separator = credentials.indexOf(':');
+            return separator >= 0
+                    ? new String[]{credentials.substring(0, separator), credentials.substring(separator + 1)}
+                    : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
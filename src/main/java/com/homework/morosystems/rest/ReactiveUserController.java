@@ -0,0 +1,114 @@
+package com.homework.morosystems.rest;
+
+import com.homework.morosystems.model.UserBatchCreateResponseDto;
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.model.UserLookupRequestDto;
+import com.homework.morosystems.model.UserLookupResponseDto;
+import com.homework.morosystems.model.UserPageResponseDto;
+import com.homework.morosystems.rest.reactive.api.UsersApi;
+import com.homework.morosystems.service.ReactiveUserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link UserController} of the reactive profile, generated from the same specification.
+ */
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserController implements UsersApi {
+
+    private final ReactiveUserService userService;
+
+    @Override
+    public Mono<ResponseEntity<UserGetDto>> createUser(Mono<UserCreateUpdateDto> userDto, ServerWebExchange exchange) {
+        return userDto.flatMap(userService::createUser)
+                .map(user -> ResponseEntity.status(HttpStatus.CREATED)
+                        .eTag(UserETags.of(user.getVersion()))
+                        .body(user));
+    }
+
+    @Override
+    public Mono<ResponseEntity<UserBatchCreateResponseDto>> createUsers(Flux<UserCreateUpdateDto> userDtos, ServerWebExchange exchange) {
+        return userDtos.collectList()
+                .flatMap(userService::createUsers)
+                .map(ResponseEntity::ok);
+    }
+
+    @Override
+    public Mono<ResponseEntity<Void>> deleteUser(Long id, ServerWebExchange exchange) {
+        return userService.deleteUser(id)
+                .then(Mono.just(new ResponseEntity<>(HttpStatus.NO_CONTENT)));
+    }
+
+    @Override
+    public Mono<ResponseEntity<UserPageResponseDto>> getAllUsers(Integer size, Integer page, String after, Boolean includeTotal,
+                                                                 String ifNoneMatch, ServerWebExchange exchange) {
+        // taken before the page is read, so that a concurrent change can only make the page newer than its tag
+        return userService.getUsersRevision()
+                .map(UserETags::of)
+                .flatMap(eTag -> {
+                    if (UserETags.isNotModified(ifNoneMatch, eTag)) {
+                        return Mono.just(ReactiveUserController.<UserPageResponseDto>notModified(eTag));
+                    }
+
+                    Mono<UserPageResponseDto> usersPage = after != null
+                            ? userService.getUsersAfter(after, size)
+                            : userService.getUsersPageable(page, size, !Boolean.FALSE.equals(includeTotal));
+                    return usersPage.map(body -> ResponseEntity.ok()
+                            .eTag(eTag)
+                            .body(body));
+                });
+    }
+
+    @Override
+    public Mono<ResponseEntity<UserGetDto>> getUserById(Long id, String ifNoneMatch, ServerWebExchange exchange) {
+        return userService.getUserById(id)
+                .map(user -> {
+                    String eTag = UserETags.of(user.getVersion());
+                    if (UserETags.isNotModified(ifNoneMatch, eTag)) {
+                        return notModified(eTag);
+                    }
+
+                    return ResponseEntity.ok()
+                            .eTag(eTag)
+                            .body(user);
+                });
+    }
+
+    @Override
+    public Mono<ResponseEntity<UserLookupResponseDto>> lookupUsers(Mono<UserLookupRequestDto> request, ServerWebExchange exchange) {
+        return request.flatMap(lookup -> userService.getUsersByIds(lookup.getIds()))
+                .map(ResponseEntity::ok);
+    }
+
+    @Override
+    public Mono<ResponseEntity<UserPageResponseDto>> searchUsers(String q, Integer size, String after, ServerWebExchange exchange) {
+        return userService.searchUsers(q, size, after)
+                .map(ResponseEntity::ok);
+    }
+
+    @Override
+    public Mono<ResponseEntity<UserGetDto>> updateUser(Long id, Mono<UserCreateUpdateDto> userDto, String ifMatch,
+                                                       ServerWebExchange exchange) {
+        // parsed lazily, so that a malformed header fails the response instead of the controller call
+        return Mono.fromCallable(() -> UserETags.versions(ifMatch))
+                .flatMap(versions -> userDto.flatMap(dto -> userService.updateUser(id, dto, versions)))
+                .map(user -> ResponseEntity.ok()
+                        .eTag(UserETags.of(user.getVersion()))
+                        .body(user));
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .build();
+    }
+}
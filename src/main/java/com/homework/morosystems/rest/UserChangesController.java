@@ -0,0 +1,53 @@
+package com.homework.morosystems.rest;
+
+import com.homework.morosystems.model.UserChangePageDto;
+import com.homework.morosystems.service.UserChangeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Change feed of users, see the {@code UserChange} schema. Not part of the generated {@code UsersApi},
+ * because both variants are served asynchronously.
+ * <ul>
+ *     <li>{@code application/json} - page of changes after {@code since}; with {@code wait} it is a long-poll
+ *     that returns as soon as a change is published</li>
+ *     <li>{@code text/event-stream} - stream of changes after {@code since} or the {@code Last-Event-ID}
+ *     of a reconnecting client</li>
+ * </ul>
+ */
+@RestController
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class UserChangesController {
+
+    private final UserChangeService userChangeService;
+
+    @Value("${app.changes.stream-timeout:PT30M}")
+    private Duration streamTimeout;
+
+    @GetMapping(value = "/users/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<UserChangePageDto> getChanges(@RequestParam(value = "since", defaultValue = "0") long since,
+                                                          @RequestParam(value = "size", defaultValue = "100") int size,
+                                                          @RequestParam(value = "wait", defaultValue = "PT0S") Duration wait) {
+        return userChangeService.getChanges(since, size, wait);
+    }
+
+    @GetMapping(value = "/users/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(value = "since", defaultValue = "0") long since,
+                                    @RequestParam(value = "size", defaultValue = "100") int size,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        userChangeService.streamChanges(emitter, lastEventId != null ? lastEventId : since, size);
+        return emitter;
+    }
+}
@@ -1,16 +1,23 @@
 package com.homework.morosystems.rest;
 
+import com.homework.morosystems.model.UserBatchCreateResponseDto;
 import com.homework.morosystems.model.UserCreateUpdateDto;
 import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.model.UserLookupRequestDto;
+import com.homework.morosystems.model.UserLookupResponseDto;
 import com.homework.morosystems.model.UserPageResponseDto;
 import com.homework.morosystems.rest.api.UsersApi;
 import com.homework.morosystems.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class UserController implements UsersApi {
 
@@ -18,7 +25,15 @@ public class UserController implements UsersApi {
 
     @Override
     public ResponseEntity<UserGetDto> createUser(UserCreateUpdateDto userDto) {
-        return new ResponseEntity<>(userService.createUser(userDto), HttpStatus.CREATED);
+        UserGetDto user = userService.createUser(userDto);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(UserETags.of(user.getVersion()))
+                .body(user);
+    }
+
+    @Override
+    public ResponseEntity<UserBatchCreateResponseDto> createUsers(List<UserCreateUpdateDto> userDtos) {
+        return ResponseEntity.ok(userService.createUsers(userDtos));
     }
 
     @Override
@@ -28,17 +43,56 @@ public class UserController implements UsersApi {
     }
 
     @Override
-    public ResponseEntity<UserPageResponseDto> getAllUsers(Integer page, Integer size) {
-        return ResponseEntity.ok(userService.getUsersPageable(page, size));
+    public ResponseEntity<UserPageResponseDto> getAllUsers(Integer size, Integer page, String after, Boolean includeTotal,
+                                                           String ifNoneMatch) {
+        // taken before the page is read, so that a concurrent change can only make the page newer than its tag
+        String eTag = UserETags.of(userService.getUsersRevision());
+        if (UserETags.isNotModified(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+
+        UserPageResponseDto usersPage = after != null
+                ? userService.getUsersAfter(after, size)
+                : userService.getUsersPageable(page, size, !Boolean.FALSE.equals(includeTotal));
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .body(usersPage);
+    }
+
+    @Override
+    public ResponseEntity<UserGetDto> getUserById(Long id, String ifNoneMatch) {
+        UserGetDto user = userService.getUserById(id);
+        String eTag = UserETags.of(user.getVersion());
+        if (UserETags.isNotModified(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .body(user);
     }
 
     @Override
-    public ResponseEntity<UserGetDto> getUserById(Long id) {
-        return ResponseEntity.ok(userService.getUserById(id));
+    public ResponseEntity<UserLookupResponseDto> lookupUsers(UserLookupRequestDto request) {
+        return ResponseEntity.ok(userService.getUsersByIds(request.getIds()));
     }
 
     @Override
-    public ResponseEntity<UserGetDto> updateUser(Long id, UserCreateUpdateDto userDto) {
-        return ResponseEntity.ok(userService.updateUser(id, userDto));
+    public ResponseEntity<UserPageResponseDto> searchUsers(String q, Integer size, String after) {
+        return ResponseEntity.ok(userService.searchUsers(q, size, after));
+    }
+
+    @Override
+    public ResponseEntity<UserGetDto> updateUser(Long id, UserCreateUpdateDto userDto, String ifMatch) {
+        UserGetDto user = userService.updateUser(id, userDto, UserETags.versions(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(UserETags.of(user.getVersion()))
+                .body(user);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .build();
     }
 }
@@ -0,0 +1,66 @@
+package com.homework.morosystems.rest;
+
+import com.homework.morosystems.exception.ApplicationException;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpStatus;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Strong entity tags of user representations. A single user is tagged with its version,
+ * a page of users with {@link com.homework.morosystems.service.UserService#getUsersRevision()}.
+ */
+final class UserETags {
+
+    private static final Pattern VERSION_PATTERN = Pattern.compile("\\d{1,18}");
+
+    private UserETags() {
+    }
+
+    static String of(Object revision) {
+        return "\"" + revision + "\"";
+    }
+
+    /**
+     * @return whether the {@code If-None-Match} header lists the given tag, using the weak comparison
+     */
+    static boolean isNotModified(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        ETag current = ETag.create(eTag);
+        return ETag.parse(ifNoneMatch).stream()
+                .anyMatch(tag -> tag.isWildcard() || tag.compare(current, false));
+    }
+
+    /**
+     * Extracts the user versions listed in an {@code If-Match} header.
+     *
+     * @return the versions, empty if the header is missing or a wildcard
+     * @throws ApplicationException with 412 if the header lists no user version at all, as it can never match
+     */
+    static Set<Long> versions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return Set.of();
+        }
+
+        List<ETag> tags = ETag.parse(ifMatch);
+        Set<Long> versions = new HashSet<>();
+        for (ETag tag : tags) {
+            if (tag.isWildcard()) {
+                return Set.of();
+            }
+            if (!tag.weak() && VERSION_PATTERN.matcher(tag.tag()).matches()) {
+                versions.add(Long.parseLong(tag.tag()));
+            }
+        }
+
+        if (versions.isEmpty()) {
+            throw new ApplicationException("If-Match does not match the current user", HttpStatus.PRECONDITION_FAILED);
+        }
+        return versions;
+    }
+}
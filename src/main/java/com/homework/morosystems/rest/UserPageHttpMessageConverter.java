@@ -0,0 +1,101 @@
+package com.homework.morosystems.rest;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.homework.morosystems.repository.UserView;
+import com.homework.morosystems.service.UserViewPage;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the user pages of {@code GET /users} and {@code GET /users/search} as JSON straight from the projections
+ * of a {@link UserViewPage}, field by field, in the same shape as the generated {@code UserPageResponseDto}.
+ * Unlike the Jackson converter, it neither maps the users to DTOs nor looks up serializers per property; the output
+ * buffer of the generator comes from the buffer pool of the shared {@link JsonFactory}.
+ * <p>
+ * As a converter bean, Spring Boot puts it in front of the default converters.
+ */
+@Component
+@Profile("!reactive")
+public class UserPageHttpMessageConverter extends AbstractHttpMessageConverter<UserViewPage> {
+
+    private final JsonFactory jsonFactory;
+
+    public UserPageHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON);
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return UserViewPage.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected UserViewPage readInternal(Class<? extends UserViewPage> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("User pages are not read", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(UserViewPage page, HttpOutputMessage outputMessage) throws IOException {
+        // the servlet container closes the response stream
+        write(page, StreamUtils.nonClosing(outputMessage.getBody()));
+    }
+
+    void write(UserViewPage page, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("content");
+            for (UserView user : page.getViews()) {
+                generator.writeStartObject();
+                writeNumberField(generator, "id", user.id());
+                generator.writeStringField("name", user.name());
+                generator.writeStringField("username", user.username());
+                writeNumberField(generator, "version", user.version());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            writeNumberField(generator, "totalElements", page.getTotalElements());
+            writeNumberField(generator, "totalPages", page.getTotalPages());
+            writeNumberField(generator, "currentPage", page.getCurrentPage());
+            writeNumberField(generator, "pageSize", page.getPageSize());
+            generator.writeStringField("nextCursor", page.getNextCursor());
+            generator.writeEndObject();
+        }
+    }
+
+    // absent values are written as null, as the Jackson converter does
+    private static void writeNumberField(JsonGenerator generator, String name, Long value) throws IOException {
+        generator.writeFieldName(name);
+        if (value != null) {
+            generator.writeNumber(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private static void writeNumberField(JsonGenerator generator, String name, Integer value) throws IOException {
+        generator.writeFieldName(name);
+        if (value != null) {
+            generator.writeNumber(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+}
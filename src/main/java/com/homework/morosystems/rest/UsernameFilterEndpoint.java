@@ -0,0 +1,27 @@
+package com.homework.morosystems.rest;
+
+import com.homework.morosystems.service.UsernameFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/usernameFilter}: state of the {@link UsernameFilter}. Read-only, since any user can sign up
+ * and authenticate; a rebuild streams every username and runs on the schedule of
+ * {@code app.users.username-filter.rebuild-interval}.
+ */
+@Component
+@Profile("!reactive")
+@Endpoint(id = "usernameFilter")
+@RequiredArgsConstructor
+public class UsernameFilterEndpoint {
+
+    private final UsernameFilter usernameFilter;
+
+    @ReadOperation
+    public UsernameFilter.Stats stats() {
+        return usernameFilter.stats();
+    }
+}
@@ -3,57 +3,125 @@ package com.homework.morosystems.rest.handler;
 import com.homework.morosystems.exception.ApplicationException;
 import com.homework.morosystems.mapper.ErrorMapper;
 import com.homework.morosystems.model.ErrorResponseDto;
-import jakarta.validation.ConstraintViolationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.ValidationException;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.ServletRequestBindingException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Slf4j
 @ControllerAdvice
-@AllArgsConstructor
 public class ControllerErrorHandler {
 
+    // shared by all responses with a fixed message, never modified
+    private static final ErrorResponseDto UNAUTHORIZED =
+            new ErrorResponseDto().status(HttpStatus.UNAUTHORIZED.toString()).message("Unauthorized");
+    private static final ErrorResponseDto BAD_REQUEST =
+            new ErrorResponseDto().status(HttpStatus.BAD_REQUEST.toString()).message("Bad request");
+    private static final ErrorResponseDto INTERNAL_SERVER_ERROR =
+            new ErrorResponseDto().status(HttpStatus.INTERNAL_SERVER_ERROR.toString()).message("Internal server runtime error");
+
     private final ErrorMapper errorMapper;
+    private final MeterRegistry meterRegistry;
+    private final ErrorLogLimiter errorLogLimiter;
+    private final ConcurrentMap<ErrorOutcome, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    public ControllerErrorHandler(ErrorMapper errorMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.errors.log.max-per-window:10}") int maxLogsPerWindow,
+                                  @Value("${app.errors.log.window:PT1S}") Duration logWindow) {
+        this.errorMapper = errorMapper;
+        this.meterRegistry = meterRegistry;
+        this.errorLogLimiter = new ErrorLogLimiter(maxLogsPerWindow, logWindow, meterRegistry);
+    }
 
     @ExceptionHandler(ApplicationException.class)
     public ResponseEntity<ErrorResponseDto> handleGenericException(ApplicationException e) {
-        log.warn("ApplicationException occurred while processing request. {}", e.toString(), e);
+        HttpStatus status = e.getHttpStatus() != null ? e.getHttpStatus() : HttpStatus.INTERNAL_SERVER_ERROR;
+        if (status.is4xxClientError()) {
+            logClientError(status, e);
+        } else {
+            log.error("ApplicationException occurred while processing request. {}", e.toString(), e);
+        }
         ErrorResponseDto error = errorMapper.toErrorResponse(e);
-        return ResponseEntity.status(e.getHttpStatus()).body(error);
+        return respond(status, e, error);
     }
 
     @ExceptionHandler(UsernameNotFoundException.class)
     public ResponseEntity<ErrorResponseDto> handleUsernameNotFoundException(UsernameNotFoundException e) {
-        log.warn("UsernameNotFoundException occurred while processing request. {}", e.toString(), e);
-        ErrorResponseDto error = new ErrorResponseDto().status(HttpStatus.UNAUTHORIZED.toString()).message("Unauthorized");
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        logClientError(HttpStatus.UNAUTHORIZED, e);
+        return respond(HttpStatus.UNAUTHORIZED, e, UNAUTHORIZED);
     }
 
     @ExceptionHandler(ValidationException.class)
     public ResponseEntity<ErrorResponseDto> handleValidationException(ValidationException e) {
-        log.error("ValidationException occurred.", e);
-        ErrorResponseDto error = new ErrorResponseDto().status(HttpStatus.BAD_REQUEST.toString()).message("Bad request");
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        logClientError(HttpStatus.BAD_REQUEST, e);
+        return respond(HttpStatus.BAD_REQUEST, e, BAD_REQUEST);
     }
 
     @ExceptionHandler(ServletRequestBindingException.class)
     public ResponseEntity<ErrorResponseDto> handleServletRequestBindingException(ServletRequestBindingException e) {
-        log.error("ServletRequestBindingException occurred.", e);
-        ErrorResponseDto error = new ErrorResponseDto().status(HttpStatus.BAD_REQUEST.toString()).message("Bad request");
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        logClientError(HttpStatus.BAD_REQUEST, e);
+        return respond(HttpStatus.BAD_REQUEST, e, BAD_REQUEST);
+    }
+
+    /**
+     * Missing or unreadable request input of the reactive profile, the counterpart of {@link ServletRequestBindingException}.
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ErrorResponseDto> handleServerWebInputException(ServerWebInputException e) {
+        logClientError(HttpStatus.BAD_REQUEST, e);
+        return respond(HttpStatus.BAD_REQUEST, e, BAD_REQUEST);
     }
 
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorResponseDto> handleRuntimeException(RuntimeException e) {
         log.error("Runtime exception occurred.", e);
-        ErrorResponseDto error = new ErrorResponseDto().status(HttpStatus.INTERNAL_SERVER_ERROR.toString()).message("Internal server runtime error");
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        return respond(HttpStatus.INTERNAL_SERVER_ERROR, e, INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * Client errors are expected and logged without stack trace, limited per status by {@link ErrorLogLimiter}.
+     */
+    private void logClientError(HttpStatus status, Exception e) {
+        long suppressed = errorLogLimiter.tryAcquire(status);
+        if (suppressed == ErrorLogLimiter.SUPPRESSED) {
+            return;
+        }
+
+        if (suppressed > 0) {
+            log.warn("{} occurred while processing request. {} ({} similar suppressed)", e.getClass().getSimpleName(), e.getMessage(), suppressed);
+        } else {
+            log.warn("{} occurred while processing request. {}", e.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Counts the outcome under {@code app.errors}, tagged with the status and the exception type.
+     */
+    private ResponseEntity<ErrorResponseDto> respond(HttpStatus status, Exception e, ErrorResponseDto error) {
+        ErrorOutcome outcome = new ErrorOutcome(status, e.getClass());
+        Counter counter = errorCounters.get(outcome);
+        if (counter == null) {
+            counter = errorCounters.computeIfAbsent(outcome, key -> meterRegistry.counter("app.errors",
+                    "status", String.valueOf(key.status().value()),
+                    "exception", key.type().getSimpleName()));
+        }
+        counter.increment();
+        return ResponseEntity.status(status).body(error);
+    }
+
+    private record ErrorOutcome(HttpStatus status, Class<?> type) {
     }
 }
@@ -0,0 +1,79 @@
+package com.homework.morosystems.rest.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allows at most {@code maxPerWindow} log lines per status and time window, so that floods of expected
+ * errors (credential stuffing, 404 scans) cannot dominate the log. Suppressed lines are counted in
+ * {@code app.errors.log.suppressed} and reported with the next line that is logged for the same status.
+ * <p>
+ * The window handling is lock-free and approximate: under contention a window may admit a few extra lines.
+ */
+final class ErrorLogLimiter {
+
+    /**
+     * Returned by {@link #tryAcquire} when the line must not be logged.
+     */
+    static final long SUPPRESSED = -1;
+
+    private final int maxPerWindow;
+    private final long windowNanos;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<HttpStatus, Window> windows = new ConcurrentHashMap<>();
+
+    ErrorLogLimiter(int maxPerWindow, Duration window, MeterRegistry meterRegistry) {
+        this.maxPerWindow = maxPerWindow;
+        this.windowNanos = window.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return {@link #SUPPRESSED}, or the number of lines suppressed for the status since the last logged one
+     */
+    long tryAcquire(HttpStatus status) {
+        Window window = windows.get(status);
+        if (window == null) {
+            window = windows.computeIfAbsent(status, this::newWindow);
+        }
+
+        long now = System.nanoTime();
+        long start = window.start.get();
+        if (now - start >= windowNanos && window.start.compareAndSet(start, now)) {
+            window.used.set(0);
+        }
+
+        if (window.used.incrementAndGet() <= maxPerWindow) {
+            return window.suppressed.getAndSet(0);
+        }
+        window.suppressed.incrementAndGet();
+        window.suppressedCounter.increment();
+        return SUPPRESSED;
+    }
+
+    private Window newWindow(HttpStatus status) {
+        return new Window(Counter.builder("app.errors.log.suppressed")
+                .description("Error log lines dropped by the rate limit")
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry));
+    }
+
+    private static final class Window {
+
+        private final AtomicLong start = new AtomicLong(System.nanoTime());
+        private final AtomicInteger used = new AtomicInteger();
+        private final AtomicLong suppressed = new AtomicLong();
+        private final Counter suppressedCounter;
+
+        private Window(Counter suppressedCounter) {
+            this.suppressedCounter = suppressedCounter;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.homework.morosystems.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of recently verified HTTP Basic credentials, so repeated requests of the same user
+ * skip both the database lookup and the BCrypt comparison.
+ * <p>
+ * Entries are keyed by username and hold an HMAC of the presented password. The HMAC key is generated
+ * at startup and never leaves the process, so cached entries cannot be used to recover passwords.
+ */
+@Service
+public class AuthenticationCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, CachedCredential> cache;
+    private final SecretKeySpec secretKey;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public AuthenticationCache(@Value("${app.security.auth-cache.max-size:10000}") long maxSize,
+                               @Value("${app.security.auth-cache.ttl:PT5M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.secretKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    /**
+     * Returns the cached user if the given password matches the one verified earlier.
+     *
+     * @param username the presented username
+     * @param password the presented raw password
+     * @return the cached user details, or empty if there is no matching entry
+     */
+    public Optional<UserDetails> get(String username, CharSequence password) {
+        CachedCredential credential = cache.getIfPresent(username);
+        if (credential == null || !MessageDigest.isEqual(credential.passwordMac(), mac(password))) {
+            return Optional.empty();
+        }
+        return Optional.of(credential.user());
+    }
+
+    /**
+     * Returns a stamp that must be passed to {@link #put} once the credentials are verified.
+     * The entry is dropped if any invalidation happens in between.
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Stores credentials that were just verified against the database.
+     *
+     * @param user     the authenticated user
+     * @param password the raw password the user authenticated with
+     * @param stamp    value of {@link #stamp()} taken before the verification started
+     */
+    public void put(UserDetails user, CharSequence password, long stamp) {
+        UserDetails withoutPassword = User.withUserDetails(user).password("").build();
+        cache.put(user.getUsername(), new CachedCredential(withoutPassword, mac(password)));
+
+        if (invalidations.get() != stamp) {
+            cache.invalidate(user.getUsername());
+        }
+    }
+
+    /**
+     * Evicts the user immediately and once more after the surrounding transaction commits,
+     * so that an authentication racing with the transaction cannot cache stale credentials.
+     *
+     * @param username the username to evict
+     */
+    public void invalidate(String username) {
+        evict(username);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(username);
+                }
+            });
+        }
+    }
+
+    private void evict(String username) {
+        invalidations.incrementAndGet();
+        cache.invalidate(username);
+    }
+
+    private byte[] mac(CharSequence password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secretKey);
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+            mac.update(bytes);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot compute password MAC", e);
+        }
+    }
+
+    private record CachedCredential(UserDetails user, byte[] passwordMac) {
+    }
+}
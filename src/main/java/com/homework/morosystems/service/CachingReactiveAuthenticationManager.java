@@ -0,0 +1,42 @@
+package com.homework.morosystems.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Reactive counterpart of {@link CachingAuthenticationProvider}: answers from {@link AuthenticationCache} when the
+ * presented credentials were verified recently and falls back to the delegate otherwise.
+ */
+@RequiredArgsConstructor
+public class CachingReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private final ReactiveAuthenticationManager delegate;
+    private final AuthenticationCache authenticationCache;
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        if (!(authentication.getCredentials() instanceof CharSequence password)) {
+            return delegate.authenticate(authentication);
+        }
+
+        Optional<UserDetails> cached = authenticationCache.get(authentication.getName(), password);
+        if (cached.isPresent()) {
+            UserDetails user = cached.get();
+            return Mono.just(UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+        }
+
+        long stamp = authenticationCache.stamp();
+        return delegate.authenticate(authentication)
+                .doOnNext(result -> {
+                    if (result.getPrincipal() instanceof UserDetails user) {
+                        authenticationCache.put(user, password, stamp);
+                    }
+                });
+    }
+}
@@ -0,0 +1,37 @@
+package com.homework.morosystems.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Change counters of entities, striped by id, so that a reader can tell whether an entity may have changed
+ * while it was being read. Ids sharing a stripe share a counter, which only makes a change look more likely.
+ */
+final class ChangeStamps {
+
+    private final AtomicLongArray stamps;
+
+    /**
+     * @param stripes number of counters the ids are spread over
+     */
+    ChangeStamps(int stripes) {
+        this.stamps = new AtomicLongArray(stripes);
+    }
+
+    /**
+     * @return the current stamp of the id, to be compared with a later one
+     */
+    long stamp(long id) {
+        return stamps.get(stripe(id));
+    }
+
+    /**
+     * Records a change of the entity. Must be called before the change invalidates any copy of it.
+     */
+    void changed(long id) {
+        stamps.incrementAndGet(stripe(id));
+    }
+
+    private int stripe(long id) {
+        return (int) Math.floorMod(id, (long) stamps.length());
+    }
+}
@@ -1,25 +1,38 @@
 package com.homework.morosystems.service;
 
+import com.homework.morosystems.configuration.PrimaryReads;
 import com.homework.morosystems.repository.UserEntity;
 import com.homework.morosystems.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+@Slf4j
 @RequiredArgsConstructor
 @Service
-public class DbUserDetailsService implements UserDetailsService {
+@Profile("!reactive")
+public class DbUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
+    /**
+     * Reads from the primary database, see {@link PrimaryReads}: a lagging read replica would still accept
+     * a password that was just changed. {@link UsernameFilter} is not consulted either,
+     * a username it has not seen yet must not reject an existing user.
+     */
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username)
             throws UsernameNotFoundException {
 
-        UserEntity user = userRepository.findByUsername(username)
+        UserEntity user = PrimaryReads.read(() -> userRepository.findByUsername(username))
                 .orElseThrow(() -> new UsernameNotFoundException(username));
 
         return User.builder()
@@ -28,4 +41,21 @@ public class DbUserDetailsService implements UserDetailsService {
                 .roles("USER")
                 .build();
     }
+
+    /**
+     * Stores a re-encoded password, unless the password was changed since {@code user} was loaded.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        if (userRepository.updatePassword(user.getUsername(), user.getPassword(), newPassword) == 0) {
+            log.debug("Password of user {} changed concurrently, skipping upgrade", user.getUsername());
+            return user;
+        }
+
+        log.debug("Password of user {} upgraded to current encoding", user.getUsername());
+        return User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
 }
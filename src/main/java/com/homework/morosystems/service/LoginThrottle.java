@@ -0,0 +1,171 @@
+package com.homework.morosystems.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.homework.morosystems.configuration.LoginThrottleProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether an authentication attempt may proceed to the database lookup and password hash check.
+ * <ul>
+ *     <li>every attempt takes a token from the bucket of the client address and of the username</li>
+ *     <li>after {@code maxFailures} consecutive failures of a client on a username, that client is locked out
+ *     of the username, the lock duration doubles with every further failure and a successful login resets it;
+ *     keying by client as well keeps others from locking the owner out of their account</li>
+ * </ul>
+ * Buckets and failure counts are kept in bounded Caffeine caches; an evicted entry starts over
+ * with a full bucket and no failures.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class LoginThrottle {
+
+    private static final String METRIC_NAME = "app.auth.throttled";
+
+    private final LoginThrottleProperties properties;
+    private final LongSupplier nanoTime;
+    private final Cache<String, TokenBucket> clientBuckets;
+    private final Cache<String, TokenBucket> usernameBuckets;
+    private final Cache<String, Failures> failures;
+    private final Counter lockedCounter;
+    private final Counter clientLimitCounter;
+    private final Counter usernameLimitCounter;
+
+    @Autowired
+    public LoginThrottle(LoginThrottleProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    LoginThrottle(LoginThrottleProperties properties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.nanoTime = nanoTime;
+        this.clientBuckets = newCache(meterRegistry, "loginThrottleClients");
+        this.usernameBuckets = newCache(meterRegistry, "loginThrottleUsernames");
+        this.failures = newCache(meterRegistry, "loginThrottleFailures");
+        this.lockedCounter = throttledCounter(meterRegistry, "locked");
+        this.clientLimitCounter = throttledCounter(meterRegistry, "client");
+        this.usernameLimitCounter = throttledCounter(meterRegistry, "username");
+    }
+
+    /**
+     * Checks the lock of the client on the username and takes a token from both buckets.
+     *
+     * @param client   address of the client
+     * @param username the presented username
+     * @return 0 if the attempt may proceed, otherwise nanoseconds after which it may be retried
+     */
+    public long tryAttempt(String client, String username) {
+        if (!properties.enabled()) {
+            return 0;
+        }
+        long now = nanoTime.getAsLong();
+
+        Failures current = failures.getIfPresent(failureKey(client, username));
+        if (current != null && current.lockedUntil() - now > 0) {
+            lockedCounter.increment();
+            return current.lockedUntil() - now;
+        }
+
+        LoginThrottleProperties.Bucket clientLimit = properties.client();
+        long wait = clientBuckets.get(client, key -> new TokenBucket(clientLimit.capacity(), clientLimit.refillPerSecond(), now))
+                .tryConsume(now);
+        if (wait > 0) {
+            clientLimitCounter.increment();
+            return wait;
+        }
+
+        LoginThrottleProperties.Bucket usernameLimit = properties.username();
+        wait = usernameBuckets.get(username, key -> new TokenBucket(usernameLimit.capacity(), usernameLimit.refillPerSecond(), now))
+                .tryConsume(now);
+        if (wait > 0) {
+            usernameLimitCounter.increment();
+        }
+        return wait;
+    }
+
+    @EventListener
+    public void onFailure(AuthenticationFailureBadCredentialsEvent event) {
+        recordFailure(client(event.getAuthentication()), event.getAuthentication().getName());
+    }
+
+    @EventListener
+    public void onSuccess(AuthenticationSuccessEvent event) {
+        recordSuccess(client(event.getAuthentication()), event.getAuthentication().getName());
+    }
+
+    void recordFailure(String client, String username) {
+        LoginThrottleProperties.Lockout lockout = properties.lockout();
+        long now = nanoTime.getAsLong();
+        Failures updated = failures.asMap().merge(failureKey(client, username), new Failures(0, now).next(lockout, now),
+                (previous, ignored) -> previous.next(lockout, now));
+        if (updated.count() == lockout.maxFailures()) {
+            log.warn("Client {} locked out of user {} after {} failed logins", client, username, updated.count());
+        }
+    }
+
+    void recordSuccess(String client, String username) {
+        String key = failureKey(client, username);
+        if (failures.getIfPresent(key) != null) {
+            failures.invalidate(key);
+        }
+    }
+
+    /**
+     * @return the client address recorded by {@code BasicAuthenticationFilter}, the same one the attempt was checked with
+     */
+    private static String client(Authentication authentication) {
+        return authentication.getDetails() instanceof WebAuthenticationDetails details ? details.getRemoteAddress() : "";
+    }
+
+    private static String failureKey(String client, String username) {
+        // a line break cannot be part of an address
+        return client + '\n' + username;
+    }
+
+    private <V> Cache<String, V> newCache(MeterRegistry meterRegistry, String name) {
+        Cache<String, V> cache = Caffeine.newBuilder()
+                .maximumSize(properties.maxTracked())
+                .expireAfterAccess(properties.idleTimeout())
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    private static Counter throttledCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder(METRIC_NAME)
+                .description("Authentication attempts rejected before the credentials were checked")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param count       consecutive failures
+     * @param lockedUntil {@link System#nanoTime()} until which attempts are rejected
+     */
+    private record Failures(int count, long lockedUntil) {
+
+        Failures next(LoginThrottleProperties.Lockout lockout, long now) {
+            int count = this.count + 1;
+            if (count < lockout.maxFailures()) {
+                return new Failures(count, now);
+            }
+            int doublings = Math.min(count - lockout.maxFailures(), 30);
+            long duration = Math.min(lockout.duration().toNanos() << doublings, lockout.maxDuration().toNanos());
+            return new Failures(count, now + duration);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.exception.ApplicationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs password hashing on a dedicated pool sized to the CPU, so that hashing never happens on a request thread
+ * while a database connection is checked out. The queue is bounded: once it is full, new requests are rejected
+ * with 503 instead of piling up.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private static final String EXECUTOR_NAME = "passwordHashing";
+    private static final String METRIC_PREFIX = "app.password.hashing";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ExecutorService executor;
+    // hashing tasks of batches submitted and not yet finished
+    private final Semaphore batchPermits;
+    private final Timer hashTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.security.hashing.threads:0}") int threads,
+                                   @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.batchPermits = new Semaphore(Math.max(1, poolSize - 1), true);
+
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"));
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, threadPoolExecutor, EXECUTOR_NAME);
+        this.hashTimer = Timer.builder(METRIC_PREFIX + ".duration")
+                .description("Time spent hashing a single password")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder(METRIC_PREFIX + ".rejected")
+                .description("Hashing requests rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hashes the password on the hashing pool and waits for the result.
+     *
+     * @param password raw password
+     * @return encoded password
+     * @throws ApplicationException with 503 status when the hashing queue is full
+     */
+    public String encode(CharSequence password) {
+        return await(submit(() -> hash(password)));
+    }
+
+    /**
+     * Hashes the password on the hashing pool without waiting for the result.
+     *
+     * @param password raw password
+     * @return the encoded password once hashing finishes
+     * @throws ApplicationException with 503 status when the hashing queue is full
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence password) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        submit(() -> {
+            try {
+                return result.complete(hash(password));
+            } catch (RuntimeException e) {
+                return result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Hashes all passwords, one task per password. Batches together keep at most one thread less than the pool has
+     * busy, so that single hashes, e.g. of a create or a login rehash, never wait behind a whole batch.
+     *
+     * @param passwords raw passwords
+     * @return encoded passwords in the same order
+     * @throws ApplicationException with 503 status when the hashing queue is full
+     */
+    public List<String> encodeAll(List<? extends CharSequence> passwords) {
+        List<Future<String>> hashes = new ArrayList<>(passwords.size());
+        for (CharSequence password : passwords) {
+            try {
+                batchPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to hash a password", e);
+            }
+            try {
+                hashes.add(submit(() -> {
+                    try {
+                        return hash(password);
+                    } finally {
+                        batchPermits.release();
+                    }
+                }));
+            } catch (RuntimeException e) {
+                batchPermits.release();
+                throw e;
+            }
+        }
+
+        List<String> encoded = new ArrayList<>(passwords.size());
+        for (Future<String> hash : hashes) {
+            encoded.add(await(hash));
+        }
+        return encoded;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private String hash(CharSequence password) {
+        return hashTimer.record(() -> passwordEncoder.encode(password));
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Password hashing queue is full, rejecting request");
+            throw new ApplicationException("Server is busy, try again later", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hash", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.exception.ApplicationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Reactive counterpart of {@link PasswordHashingExecutor}: runs password hashing and verification on a bounded
+ * scheduler sized to the CPU, so that it never blocks an event loop. Its queue is bounded as well, once it is full
+ * new hashes are rejected with 503 instead of piling up.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+public class PasswordHashingScheduler implements DisposableBean {
+
+    private static final String METRIC_PREFIX = "app.password.hashing";
+
+    private final PasswordEncoder passwordEncoder;
+    private final Scheduler scheduler;
+    // hashes of one batch running at once, one less than the scheduler has threads, see PasswordHashingExecutor#encodeAll
+    private final int batchConcurrency;
+    private final Timer hashTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingScheduler(PasswordEncoder passwordEncoder,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.security.hashing.threads:0}") int threads,
+                                    @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.batchConcurrency = Math.max(1, poolSize - 1);
+        this.scheduler = Schedulers.newBoundedElastic(poolSize, queueCapacity, "password-hashing");
+        this.hashTimer = Timer.builder(METRIC_PREFIX + ".duration")
+                .description("Time spent hashing a single password")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder(METRIC_PREFIX + ".rejected")
+                .description("Hashing requests rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The scheduler itself, for password verification by the authentication manager.
+     */
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Hashes the password on the scheduler.
+     *
+     * @param password raw password
+     * @return the encoded password, or an {@link ApplicationException} with 503 status when the queue is full
+     */
+    public Mono<String> encode(CharSequence password) {
+        return Mono.fromCallable(() -> hashTimer.record(() -> passwordEncoder.encode(password)))
+                .subscribeOn(scheduler)
+                .onErrorMap(RejectedExecutionException.class, e -> {
+                    rejectedCounter.increment();
+                    log.warn("Password hashing queue is full, rejecting request");
+                    return new ApplicationException("Server is busy, try again later", HttpStatus.SERVICE_UNAVAILABLE);
+                });
+    }
+
+    /**
+     * Hashes all passwords, leaving a thread of the scheduler to single hashes like {@link PasswordHashingExecutor#encodeAll}.
+     *
+     * @param passwords raw passwords
+     * @return encoded passwords in the same order
+     */
+    public Mono<List<String>> encodeAll(List<? extends CharSequence> passwords) {
+        return Flux.fromIterable(passwords)
+                .flatMapSequential(this::encode, batchConcurrency)
+                .collectList();
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,58 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.exception.ApplicationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Re-encodes passwords that were hashed with an outdated algorithm or cost, using the raw password
+ * presented at a successful login. Runs in the background on {@link PasswordHashingExecutor}
+ * and is skipped when the hashing pool is busy; the next login will try again.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+@Profile("!reactive")
+public class PasswordRehashService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param user        the user as loaded from the database, with the stored password hash
+     * @param rawPassword the password the user just authenticated with
+     */
+    public void rehashIfOutdated(UserDetails user, CharSequence rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword()) || !inProgress.add(user.getUsername())) {
+            return;
+        }
+
+        // copy now, the authentication erases credentials as soon as it completes
+        UserDetails loadedUser = User.withUserDetails(user).build();
+        String password = rawPassword.toString();
+        try {
+            passwordHashingExecutor.encodeAsync(password)
+                    .thenAccept(newPassword -> userDetailsPasswordService.updatePassword(loadedUser, newPassword))
+                    .whenComplete((result, e) -> {
+                        inProgress.remove(loadedUser.getUsername());
+                        if (e != null) {
+                            log.warn("Password upgrade failed for user {}", loadedUser.getUsername(), e);
+                        }
+                    });
+        } catch (ApplicationException e) {
+            inProgress.remove(loadedUser.getUsername());
+            log.debug("Password upgrade for user {} postponed, hashing pool is busy", loadedUser.getUsername());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.homework.morosystems.service;
+
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link DaoAuthenticationProvider} that upgrades outdated password hashes through {@link PasswordRehashService}
+ * instead of re-encoding synchronously on the request thread.
+ */
+public class PasswordUpgradingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final PasswordRehashService passwordRehashService;
+
+    public PasswordUpgradingAuthenticationProvider(PasswordEncoder passwordEncoder, PasswordRehashService passwordRehashService) {
+        super(passwordEncoder);
+        this.passwordRehashService = passwordRehashService;
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user) {
+        if (authentication.getCredentials() instanceof CharSequence password) {
+            passwordRehashService.rehashIfOutdated(user, password);
+        }
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+}
@@ -0,0 +1,53 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.repository.ReactiveUserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link DbUserDetailsService}. An empty result makes the authentication manager
+ * reject the credentials.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+@Profile("reactive")
+public class ReactiveDbUserDetailsService implements ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
+
+    private final ReactiveUserRepository userRepository;
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return userRepository.findByUsername(username)
+                .map(user -> User.builder()
+                        .username(user.username())
+                        .password(user.password())
+                        .roles("USER")
+                        .build());
+    }
+
+    /**
+     * Stores a re-encoded password, unless the password was changed since {@code user} was loaded.
+     */
+    @Override
+    public Mono<UserDetails> updatePassword(UserDetails user, String newPassword) {
+        return userRepository.updatePassword(user.getUsername(), user.getPassword(), newPassword)
+                .map(updated -> {
+                    if (updated == 0) {
+                        log.debug("Password of user {} changed concurrently, skipping upgrade", user.getUsername());
+                        return user;
+                    }
+                    log.debug("Password of user {} upgraded to current encoding", user.getUsername());
+                    return User.withUserDetails(user)
+                            .password(newPassword)
+                            .build();
+                });
+    }
+}
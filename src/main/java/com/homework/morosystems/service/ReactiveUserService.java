@@ -0,0 +1,507 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.configuration.CacheConfig;
+import com.homework.morosystems.exception.ApplicationException;
+import com.homework.morosystems.mapper.UserMapper;
+import com.homework.morosystems.model.UserBatchConflictDto;
+import com.homework.morosystems.model.UserBatchCreateResponseDto;
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.model.UserLookupResponseDto;
+import com.homework.morosystems.model.UserPageResponseDto;
+import com.homework.morosystems.repository.ReactiveUserEventRepository;
+import com.homework.morosystems.repository.ReactiveUserRepository;
+import com.homework.morosystems.repository.UserEventType;
+import com.homework.morosystems.repository.UserView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.homework.morosystems.service.UserService.ERR_MSG_USER_NOT_FOUND;
+import static com.homework.morosystems.service.UserService.MAX_BATCH_SIZE;
+import static com.homework.morosystems.service.UserService.MAX_LOOKUP_SIZE;
+import static com.homework.morosystems.service.UserService.MAX_SEARCH_SIZE;
+import static com.homework.morosystems.service.UserService.MIN_SEARCH_LENGTH;
+
+/**
+ * {@link UserService} of the reactive profile, on R2DBC. Validation, messages and statuses are the same, as are
+ * the users cache and the outbox of the change feed, which every write appends to in its own transaction.
+ * Passwords are hashed on the {@link PasswordHashingScheduler}, outside of any transaction.
+ * <p>
+ * Unlike {@link UserService}, concurrent updates of one user are not merged: an update locks the row it read,
+ * so updates of the same user wait for each other instead of failing on the version. The username filter
+ * is not used, it is only kept up to date by servlet instances.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+@Profile("reactive")
+public class ReactiveUserService {
+
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+    private static final int CHANGE_STAMP_STRIPES = 4096;
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveUserEventRepository userEventRepository;
+    private final UserMapper userMapper;
+    private final PasswordHashingScheduler passwordHashingScheduler;
+    private final AuthenticationCache authenticationCache;
+    private final TransactionalOperator transactionalOperator;
+    private final CacheManager cacheManager;
+    private final ChangeStamps changeStamps = new ChangeStamps(CHANGE_STAMP_STRIPES);
+
+    /**
+     * Returns the user from the cache, or reads it and adds it to the cache unless it changed meanwhile.
+     */
+    public Mono<UserGetDto> getUserById(Long id) {
+        return Mono.defer(() -> {
+            Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+            UserGetDto cached = cache != null ? cache.get(id, UserGetDto.class) : null;
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+
+            long stamp = changeStamps.stamp(id);
+            return userRepository.findViewById(id)
+                    .map(userMapper::toDto)
+                    .switchIfEmpty(Mono.error(() -> notFound(id)))
+                    .doOnNext(user -> cacheIfUnchanged(cache, user, stamp));
+        });
+    }
+
+    /**
+     * Same as {@link UserService#getUsersByIds(List)}: users in the cache are served from it, the others are read
+     * with a single query and added to the cache.
+     */
+    public Mono<UserLookupResponseDto> getUsersByIds(List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_LOOKUP_SIZE) {
+            return Mono.error(new ApplicationException("Lookup must contain 1 to %s ids".formatted(MAX_LOOKUP_SIZE), HttpStatus.BAD_REQUEST));
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            return Mono.error(new ApplicationException("Ids must not be null", HttpStatus.BAD_REQUEST));
+        }
+
+        return Mono.defer(() -> {
+            Set<Long> distinctIds = new LinkedHashSet<>(ids);
+            Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+            Map<Long, UserGetDto> users = new HashMap<>();
+            List<Long> notCached = new ArrayList<>();
+            for (Long id : distinctIds) {
+                UserGetDto cached = cache != null ? cache.get(id, UserGetDto.class) : null;
+                if (cached != null) {
+                    users.put(id, cached);
+                } else {
+                    notCached.add(id);
+                }
+            }
+
+            Map<Long, Long> stamps = new HashMap<>();
+            notCached.forEach(id -> stamps.put(id, changeStamps.stamp(id)));
+            Mono<Void> read = notCached.isEmpty()
+                    ? Mono.empty()
+                    : userRepository.findViewsByIdIn(notCached)
+                            .map(userMapper::toDto)
+                            .doOnNext(user -> {
+                                users.put(user.getId(), user);
+                                cacheIfUnchanged(cache, user, stamps.get(user.getId()));
+                            })
+                            .then();
+
+            return read.then(Mono.fromSupplier(() -> {
+                UserLookupResponseDto response = new UserLookupResponseDto()
+                        .users(new ArrayList<>(users.size()))
+                        .missingIds(new ArrayList<>());
+                for (Long id : distinctIds) {
+                    UserGetDto user = users.get(id);
+                    if (user != null) {
+                        response.addUsersItem(user);
+                    } else {
+                        response.addMissingIdsItem(id);
+                    }
+                }
+                log.debug("Looked up {} users, {} from cache, {} missing", distinctIds.size(),
+                        distinctIds.size() - notCached.size(), response.getMissingIds().size());
+                return response;
+            }));
+        });
+    }
+
+    /**
+     * Deletes the user. The cached copy is evicted once the delete has committed.
+     */
+    public Mono<Void> deleteUser(Long id) {
+        return userRepository.lockViewById(id)
+                .switchIfEmpty(Mono.error(() -> notFound(id)))
+                .flatMap(user -> isCurrentAuthenticatedUsername(user.username())
+                        .flatMap(allowed -> allowed
+                                ? userRepository.deleteById(id)
+                                        .then(userEventRepository.insert(UserEventType.DELETED.name(), id, null, null, null, Instant.now()))
+                                        .thenReturn(user.username())
+                                : Mono.<String>error(new ApplicationException("Cannot to delete other user", HttpStatus.FORBIDDEN))))
+                .as(transactionalOperator::transactional)
+                .doOnNext(username -> {
+                    evictChanged(id);
+                    authenticationCache.invalidate(username);
+                    log.debug("User with id {} deleted", id);
+                })
+                .then();
+    }
+
+    public Mono<UserPageResponseDto> getUsersPageable(Integer page, Integer size, boolean includeTotal) {
+        if (page < 0 || size <= 0) {
+            return Mono.error(new ApplicationException("Page and size must be greater than 0", HttpStatus.BAD_REQUEST));
+        }
+
+        // one user more than the page size tells whether there is a next page
+        Mono<List<UserView>> users = userRepository.findAllViews((long) page * size, size + 1).collectList();
+        if (!includeTotal) {
+            return users.map(views -> offsetPage(views, page, size));
+        }
+        return Mono.zip(users, userRepository.countAll())
+                .map(result -> {
+                    long total = result.getT2();
+                    return offsetPage(result.getT1(), page, size)
+                            .totalPages((int) Math.ceil((double) total / size))
+                            .totalElements(total);
+                });
+    }
+
+    /**
+     * Same as {@link UserService#searchUsers(String, Integer, String)}.
+     */
+    public Mono<UserPageResponseDto> searchUsers(String query, Integer size, String after) {
+        String trimmedQuery = StringUtils.trimToEmpty(query);
+        if (trimmedQuery.length() < MIN_SEARCH_LENGTH) {
+            return Mono.error(new ApplicationException("Search query must have at least %s characters".formatted(MIN_SEARCH_LENGTH), HttpStatus.BAD_REQUEST));
+        }
+        if (size <= 0 || size > MAX_SEARCH_SIZE) {
+            return Mono.error(new ApplicationException("Size must be between 1 and %s".formatted(MAX_SEARCH_SIZE), HttpStatus.BAD_REQUEST));
+        }
+
+        return Mono.defer(() -> {
+            long lastId = after != null ? UserCursor.decode(after) : 0L;
+            String pattern = "%" + escapeLikePattern(trimmedQuery) + "%";
+            return userRepository.search(pattern, lastId, size + 1)
+                    .collectList()
+                    .map(users -> keysetPage(users, size));
+        });
+    }
+
+    /**
+     * Same as {@link UserService#getUsersRevision()}.
+     */
+    public Mono<String> getUsersRevision() {
+        return userEventRepository.getRevision();
+    }
+
+    public Mono<UserPageResponseDto> getUsersAfter(String after, Integer size) {
+        if (size <= 0) {
+            return Mono.error(new ApplicationException("Size must be greater than 0", HttpStatus.BAD_REQUEST));
+        }
+
+        return Mono.defer(() -> userRepository.findViewsByIdGreaterThan(UserCursor.decode(after), size + 1)
+                .collectList()
+                .map(users -> keysetPage(users, size)));
+    }
+
+    /**
+     * Updates the user. A new password is hashed before the transaction starts, after a cheap check that the user
+     * exists and may be edited. The transaction locks the row, repeats the checks and writes the change.
+     *
+     * @param expectedVersions versions the update may be applied to, empty to accept any version
+     */
+    public Mono<UserGetDto> updateUser(Long id, UserCreateUpdateDto userDto, Set<Long> expectedVersions) {
+        Mono<Optional<String>> passwordHash = StringUtils.isNotBlank(userDto.getPassword())
+                ? encodeNewPassword(id, userDto.getPassword()).map(Optional::of)
+                : Mono.just(Optional.empty());
+
+        return passwordHash
+                .flatMap(hash -> applyUpdate(id, userDto, expectedVersions, hash.orElse(null))
+                        .as(transactionalOperator::transactional))
+                .map(saved -> {
+                    evictChanged(id);
+                    authenticationCache.invalidate(saved.previousUsername());
+                    log.debug("User with id {} updated", id);
+                    return saved.user();
+                })
+                // renamed to a username taken concurrently
+                .onErrorMap(DataIntegrityViolationException.class, e -> usernameTaken(userDto.getUsername()));
+    }
+
+    private Mono<String> encodeNewPassword(Long id, String password) {
+        return userRepository.findViewById(id)
+                .switchIfEmpty(Mono.error(() -> notFound(id)))
+                .flatMap(user -> isCurrentAuthenticatedUsername(user.username()))
+                .flatMap(allowed -> allowed
+                        ? passwordHashingScheduler.encode(password)
+                        : Mono.<String>error(new ApplicationException("You cannot edit other users", HttpStatus.FORBIDDEN)));
+    }
+
+    private Mono<SavedUpdate> applyUpdate(Long id, UserCreateUpdateDto userDto, Set<Long> expectedVersions, String passwordHash) {
+        return userRepository.lockViewById(id)
+                .switchIfEmpty(Mono.error(() -> notFound(id)))
+                .flatMap(user -> isCurrentAuthenticatedUsername(user.username())
+                        .flatMap(allowed -> {
+                            if (!allowed) {
+                                return Mono.error(new ApplicationException("You cannot edit other users", HttpStatus.FORBIDDEN));
+                            }
+                            if (!expectedVersions.isEmpty() && !expectedVersions.contains(user.version())) {
+                                return Mono.error(new ApplicationException(UserService.ERR_MSG_USER_MODIFIED.formatted(id), HttpStatus.PRECONDITION_FAILED));
+                            }
+                            return checkUsernameFree(user.username(), userDto.getUsername())
+                                    .then(userRepository.update(id, userDto.getName(), userDto.getUsername(), passwordHash))
+                                    .flatMap(updated -> recordChange(UserEventType.UPDATED, updated)
+                                            .thenReturn(new SavedUpdate(userMapper.toDto(updated), user.username())));
+                        }));
+    }
+
+    private Mono<Void> checkUsernameFree(String currentUsername, String newUsername) {
+        if (currentUsername.equals(newUsername)) {
+            return Mono.empty();
+        }
+        return userRepository.existsByUsername(newUsername)
+                .flatMap(exists -> exists ? Mono.<Void>error(usernameTaken(newUsername)) : Mono.<Void>empty());
+    }
+
+    /**
+     * Creates the user. The password is hashed outside of any transaction, the insert runs in its own.
+     */
+    public Mono<UserGetDto> createUser(UserCreateUpdateDto userDto) {
+        return userRepository.existsByUsername(userDto.getUsername())
+                .flatMap(exists -> {
+                    if (exists) {
+                        return Mono.error(usernameTaken(userDto.getUsername()));
+                    }
+                    if (StringUtils.isBlank(userDto.getPassword())) {
+                        return Mono.error(new ApplicationException("Password cannot be empty", HttpStatus.BAD_REQUEST));
+                    }
+                    return passwordHashingScheduler.encode(userDto.getPassword());
+                })
+                .flatMap(passwordHash -> userRepository.insert(userDto.getName(), userDto.getUsername(), passwordHash)
+                        .flatMap(user -> recordChange(UserEventType.CREATED, user).thenReturn(user))
+                        .as(transactionalOperator::transactional))
+                .map(userView -> {
+                    UserGetDto user = userMapper.toDto(userView);
+                    Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+                    if (cache != null) {
+                        cache.put(user.getId(), user);
+                    }
+                    log.debug("Created new user with id {}", user.getId());
+                    return user;
+                })
+                .onErrorMap(DataIntegrityViolationException.class, e -> usernameTaken(userDto.getUsername()));
+    }
+
+    /**
+     * Same as {@link UserService#createUsers(List)}. The users are inserted with a single statement,
+     * as are their change events.
+     */
+    public Mono<UserBatchCreateResponseDto> createUsers(List<UserCreateUpdateDto> userDtos) {
+        if (userDtos.isEmpty() || userDtos.size() > MAX_BATCH_SIZE) {
+            return Mono.error(new ApplicationException("Batch must contain 1 to %s users".formatted(MAX_BATCH_SIZE), HttpStatus.BAD_REQUEST));
+        }
+
+        List<String> usernames = userDtos.stream().map(UserCreateUpdateDto::getUsername).toList();
+        return userRepository.findExistingUsernames(usernames)
+                .collect(Collectors.toCollection(HashSet::new))
+                .flatMap(takenUsernames -> {
+                    UserBatchCreateResponseDto response = new UserBatchCreateResponseDto();
+                    List<Integer> accepted = new ArrayList<>();
+                    for (int i = 0; i < userDtos.size(); i++) {
+                        UserCreateUpdateDto userDto = userDtos.get(i);
+                        if (StringUtils.isBlank(userDto.getPassword())) {
+                            response.addConflictsItem(batchConflict(i, userDto, "Password cannot be empty"));
+                        } else if (!takenUsernames.add(userDto.getUsername())) {
+                            response.addConflictsItem(batchConflict(i, userDto, "User with username %s already exists".formatted(userDto.getUsername())));
+                        } else {
+                            accepted.add(i);
+                        }
+                    }
+
+                    return passwordHashingScheduler.encodeAll(accepted.stream().map(i -> userDtos.get(i).getPassword()).toList())
+                            .flatMap(passwordHashes -> {
+                                List<BatchItem> items = new ArrayList<>(accepted.size());
+                                for (int i = 0; i < accepted.size(); i++) {
+                                    int index = accepted.get(i);
+                                    items.add(new BatchItem(index, userDtos.get(index), passwordHashes.get(i)));
+                                }
+                                return insertBatch(response, items, 1);
+                            });
+                })
+                .map(response -> {
+                    if (response.getConflicts() != null) {
+                        response.getConflicts().sort(Comparator.comparing(UserBatchConflictDto::getIndex));
+                    }
+                    int created = response.getCreatedIds() != null ? response.getCreatedIds().size() : 0;
+                    log.debug("Created {} users in batch, {} rejected", created, userDtos.size() - created);
+                    return response;
+                });
+    }
+
+    /**
+     * Inserts the users in one transaction and reports their ids once it has committed. A concurrent create that
+     * took a username between the lookup and the insert fails the transaction; the users are then inserted again
+     * without the taken usernames, at most {@value #MAX_BATCH_ATTEMPTS} times.
+     */
+    private Mono<UserBatchCreateResponseDto> insertBatch(UserBatchCreateResponseDto response, List<BatchItem> items, int attempt) {
+        if (items.isEmpty()) {
+            return Mono.just(response);
+        }
+
+        String[] names = items.stream().map(item -> item.userDto().getName()).toArray(String[]::new);
+        String[] usernames = items.stream().map(item -> item.userDto().getUsername()).toArray(String[]::new);
+        String[] passwords = items.stream().map(BatchItem::passwordHash).toArray(String[]::new);
+        return userRepository.insertAll(names, usernames, passwords)
+                .collectList()
+                .flatMap(created -> userEventRepository.insertAll(UserEventType.CREATED.name(),
+                                created.stream().map(UserView::id).toArray(Long[]::new),
+                                created.stream().map(UserView::name).toArray(String[]::new),
+                                created.stream().map(UserView::username).toArray(String[]::new),
+                                created.stream().map(UserView::version).toArray(Long[]::new),
+                                Instant.now())
+                        .thenReturn(created))
+                .as(transactionalOperator::transactional)
+                .map(created -> {
+                    // the rows come back in any order, the ids are reported in the order of the batch
+                    Map<String, Long> ids = created.stream().collect(Collectors.toMap(UserView::username, UserView::id));
+                    items.forEach(item -> response.addCreatedIdsItem(ids.get(item.userDto().getUsername())));
+                    return response;
+                })
+                .onErrorResume(DataIntegrityViolationException.class, e -> userRepository.findExistingUsernames(List.of(usernames))
+                        .collect(Collectors.toSet())
+                        .flatMap(taken -> {
+                            if (taken.isEmpty() || attempt == MAX_BATCH_ATTEMPTS) {
+                                return Mono.error(new ApplicationException("Users could not be created because of a concurrent change, try again", HttpStatus.CONFLICT));
+                            }
+
+                            List<BatchItem> remaining = new ArrayList<>(items.size());
+                            for (BatchItem item : items) {
+                                if (taken.contains(item.userDto().getUsername())) {
+                                    response.addConflictsItem(batchConflict(item.index(), item.userDto(),
+                                            "User with username %s already exists".formatted(item.userDto().getUsername())));
+                                } else {
+                                    remaining.add(item);
+                                }
+                            }
+                            log.debug("Batch insert hit {} concurrently created usernames, retrying without them", taken.size());
+                            return insertBatch(response, remaining, attempt + 1);
+                        }));
+    }
+
+    private Mono<Integer> recordChange(UserEventType type, UserView user) {
+        return userEventRepository.insert(type.name(), user.id(), user.name(), user.username(), user.version(), Instant.now());
+    }
+
+    /**
+     * Same as {@link SecurityUtil#isCurrentAuthenticatedUsername(String)}, for the security context of the exchange.
+     */
+    private static Mono<Boolean> isCurrentAuthenticatedUsername(String username) {
+        return ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(SecurityContext::getAuthentication)
+                .map(auth -> auth.getName().equals(username))
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Records a committed change of the user and evicts its cached copy, see {@link UserService}.
+     */
+    private void evictChanged(Long id) {
+        changeStamps.changed(id);
+        Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        if (cache != null) {
+            cache.evict(id);
+        }
+    }
+
+    /**
+     * Adds the user read from the database to the cache, unless it changed while it was read, see {@link UserService}.
+     */
+    private void cacheIfUnchanged(Cache cache, UserGetDto user, long stamp) {
+        if (cache == null || changeStamps.stamp(user.getId()) != stamp) {
+            return;
+        }
+        cache.putIfAbsent(user.getId(), user);
+        if (changeStamps.stamp(user.getId()) != stamp) {
+            cache.evict(user.getId());
+        }
+    }
+
+    private UserPageResponseDto offsetPage(List<UserView> users, int page, int size) {
+        boolean hasNext = users.size() > size;
+        List<UserView> content = hasNext ? users.subList(0, size) : users;
+        return new UserViewPage(content, userMapper::toDto)
+                .currentPage(page)
+                .pageSize(size)
+                .nextCursor(nextCursor(content, hasNext));
+    }
+
+    /**
+     * @param users up to one user more than the page size, which only tells that there is a next page
+     */
+    private UserPageResponseDto keysetPage(List<UserView> users, int size) {
+        boolean hasNext = users.size() > size;
+        List<UserView> content = hasNext ? users.subList(0, size) : users;
+        return new UserViewPage(content, userMapper::toDto)
+                .pageSize(size)
+                .nextCursor(nextCursor(content, hasNext));
+    }
+
+    private static String nextCursor(List<UserView> content, boolean hasNext) {
+        return hasNext ? UserCursor.encode(content.get(content.size() - 1).id()) : null;
+    }
+
+    private static ApplicationException notFound(Long id) {
+        return new ApplicationException(ERR_MSG_USER_NOT_FOUND.formatted(id), HttpStatus.NOT_FOUND);
+    }
+
+    private static ApplicationException usernameTaken(String username) {
+        return new ApplicationException("User with username %s already exists".formatted(username), HttpStatus.CONFLICT);
+    }
+
+    private static UserBatchConflictDto batchConflict(int index, UserCreateUpdateDto userDto, String message) {
+        return new UserBatchConflictDto()
+                .index(index)
+                .username(userDto.getUsername())
+                .message(message);
+    }
+
+    private static String escapeLikePattern(String text) {
+        return text.replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+    }
+
+    /**
+     * Update written in a transaction that is yet to commit, with the username the user had before it.
+     */
+    private record SavedUpdate(UserGetDto user, String previousUsername) {
+    }
+
+    /**
+     * User of a batch, with its index in the request and its password hash.
+     */
+    private record BatchItem(int index, UserCreateUpdateDto userDto, String passwordHash) {
+    }
+}
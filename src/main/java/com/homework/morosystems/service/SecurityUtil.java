@@ -1,17 +1,27 @@
 package com.homework.morosystems.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-@RequiredArgsConstructor
+import java.util.List;
+
 @Service
+@Profile("!reactive")
 public class SecurityUtil {
 
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final Timer encodeTimer;
 
+    public SecurityUtil(PasswordHashingExecutor passwordHashingExecutor, MeterRegistry meterRegistry) {
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.encodeTimer = Timer.builder("app.password.encode.duration")
+                .description("Time a request waits for its password to be hashed, including queueing")
+                .register(meterRegistry);
+    }
 
     /**
      * Checks if the provided username matches the currently authenticated user's username.
@@ -24,8 +34,25 @@ public class SecurityUtil {
         return auth != null && auth.getName().equals(username);
     }
 
+    /**
+     * Hashes the password on the {@link PasswordHashingExecutor}. Must not be called inside a transaction,
+     * so that no database connection is held while hashing.
+     *
+     * @param password the raw password
+     * @return the encoded password
+     */
     public String encodePassword(CharSequence password) {
-        return passwordEncoder.encode(password);
+        return encodeTimer.record(() -> passwordHashingExecutor.encode(password));
+    }
+
+    /**
+     * Batch variant of {@link #encodePassword(CharSequence)}.
+     *
+     * @param passwords the raw passwords
+     * @return the encoded passwords in the same order
+     */
+    public List<String> encodePasswords(List<? extends CharSequence> passwords) {
+        return passwordHashingExecutor.encodeAll(passwords);
     }
 
 }
@@ -0,0 +1,44 @@
+package com.homework.morosystems.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as the generic cell rate algorithm: the whole state is the theoretical
+ * time at which the bucket is full again, updated with a single compare-and-set.
+ */
+final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * @param capacity        tokens available in a burst
+     * @param refillPerSecond tokens added per second
+     * @param now             current {@link System#nanoTime()}, the bucket starts full
+     */
+    TokenBucket(int capacity, double refillPerSecond, long now) {
+        this.emissionIntervalNanos = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * capacity;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes one token if available.
+     *
+     * @param now current {@link System#nanoTime()}
+     * @return 0 if the token was taken, otherwise nanoseconds until one becomes available
+     */
+    long tryConsume(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current - now, 0) + emissionIntervalNanos;
+            if (next > burstToleranceNanos) {
+                return next - burstToleranceNanos;
+            }
+            if (fullAt.compareAndSet(current, now + next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.repository.UserEntity;
+import com.homework.morosystems.repository.UserEventEntity;
+import com.homework.morosystems.repository.UserEventRepository;
+import com.homework.morosystems.repository.UserEventType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Appends user changes to the {@code user_events} outbox. Must be called inside the transaction
+ * that writes the change, so that the event is committed if and only if the change is.
+ * {@link UserChangeRelay} then publishes the events to the change feed.
+ */
+@RequiredArgsConstructor
+@Service
+@Profile("!reactive")
+@Transactional(propagation = Propagation.MANDATORY)
+public class UserChangeLog {
+
+    private final UserEventRepository userEventRepository;
+
+    /**
+     * @param type {@link UserEventType#CREATED} or {@link UserEventType#UPDATED}
+     * @param user the user as written, with the new version
+     */
+    public void record(UserEventType type, UserEntity user) {
+        userEventRepository.save(event(type, user, Instant.now()));
+    }
+
+    public void recordAll(UserEventType type, List<UserEntity> users) {
+        Instant now = Instant.now();
+        userEventRepository.saveAll(users.stream()
+                .map(user -> event(type, user, now))
+                .toList());
+    }
+
+    public void recordDeleted(Long userId) {
+        UserEventEntity event = new UserEventEntity();
+        event.setType(UserEventType.DELETED);
+        event.setUserId(userId);
+        event.setCreatedAt(Instant.now());
+        userEventRepository.save(event);
+    }
+
+    /**
+     * @return a token that changes whenever a change of any user is committed, see {@link UserEventRepository#getRevision()}
+     */
+    public String revision() {
+        return userEventRepository.getRevision();
+    }
+
+    private static UserEventEntity event(UserEventType type, UserEntity user, Instant createdAt) {
+        UserEventEntity event = new UserEventEntity();
+        event.setType(type);
+        event.setUserId(user.getId());
+        event.setName(user.getName());
+        event.setUsername(user.getUsername());
+        event.setUserVersion(user.getVersion());
+        event.setCreatedAt(createdAt);
+        return event;
+    }
+}
@@ -0,0 +1,110 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.repository.UserEventEntity;
+import com.homework.morosystems.repository.UserEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes outbox events to the change feed by assigning them their {@code seq}, in batches.
+ * <p>
+ * Positions are assigned while holding the lock of the {@code user_events_relay} row, so relays of several
+ * instances take turns and a batch becomes visible only after all batches with lower positions. A consumer
+ * that has read up to some position can therefore never miss an event that is published later.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class UserChangeRelay implements DisposableBean {
+
+    private final UserEventRepository userEventRepository;
+    private final UserChangeService userChangeService;
+    private final TransactionOperations transactionOperations;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final ScheduledExecutorService executor;
+
+    public UserChangeRelay(UserEventRepository userEventRepository,
+                           UserChangeService userChangeService,
+                           TransactionOperations transactionOperations,
+                           @Value("${app.changes.relay.batch-size:500}") int batchSize,
+                           @Value("${app.changes.relay.poll-interval:PT0.1S}") Duration pollInterval) {
+        this.userEventRepository = userEventRepository;
+        this.userChangeService = userChangeService;
+        this.transactionOperations = transactionOperations;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("user-change-relay-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::relay, pollInterval.toNanos(), pollInterval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Publishes batches until no unpublished event is left.
+     */
+    void relay() {
+        try {
+            while (publishBatch() == batchSize) {
+                log.debug("Full batch of user changes published, continuing");
+            }
+        } catch (RuntimeException e) {
+            // an exception would cancel the schedule
+            log.warn("Publishing user changes failed, retrying in {}", pollInterval, e);
+        }
+    }
+
+    /**
+     * @return number of published events
+     */
+    int publishBatch() {
+        // a read-write transaction, so that the outbox is read from the primary even with read replicas
+        long[] published = transactionOperations.execute(status -> {
+            if (userEventRepository.findUnpublished(Limit.of(1)).isEmpty()) {
+                return null;
+            }
+
+            long seq = userEventRepository.lockLastSeq();
+            List<UserEventEntity> events = userEventRepository.findUnpublished(Limit.of(batchSize));
+            for (UserEventEntity event : events) {
+                event.setSeq(++seq);
+            }
+            userEventRepository.updateLastSeq(seq);
+            return new long[]{events.size(), seq};
+        });
+
+        if (published == null) {
+            // picks up what the relays of other instances published
+            userChangeService.advance(userEventRepository.getLastSeq());
+            return 0;
+        }
+
+        userChangeService.advance(published[1]);
+        log.debug("Published {} user changes up to seq {}", published[0], published[1]);
+        return (int) published[0];
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
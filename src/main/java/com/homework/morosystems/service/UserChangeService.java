@@ -0,0 +1,171 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.exception.ApplicationException;
+import com.homework.morosystems.mapper.UserEventMapper;
+import com.homework.morosystems.model.UserChangeDto;
+import com.homework.morosystems.model.UserChangePageDto;
+import com.homework.morosystems.repository.UserEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads the change feed published by {@link UserChangeRelay}. Reads seek on {@code seq}, so replaying
+ * from any position costs the same as reading the newest changes.
+ * <p>
+ * Waiting consumers hold no thread: they are parked on a future completed when the relay publishes,
+ * and the following read runs on a virtual thread.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class UserChangeService implements DisposableBean {
+
+    public static final int MAX_CHANGES_SIZE = 1000;
+    public static final Duration MAX_WAIT = Duration.ofSeconds(25);
+
+    private final UserEventRepository userEventRepository;
+    private final UserEventMapper userEventMapper;
+    private final AtomicLong publishedSeq = new AtomicLong();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile CompletableFuture<Void> nextPublish = new CompletableFuture<>();
+
+    public UserChangeService(UserEventRepository userEventRepository, UserEventMapper userEventMapper) {
+        this.userEventRepository = userEventRepository;
+        this.userEventMapper = userEventMapper;
+    }
+
+    /**
+     * Returns the changes after {@code since}. When there are none, waits up to {@code wait}
+     * for new ones to be published and returns an empty page if none come.
+     *
+     * @param since last position the consumer has seen, 0 to start from the beginning
+     * @param size  maximum number of changes
+     * @param wait  how long to wait for changes, zero to return immediately
+     */
+    public CompletableFuture<UserChangePageDto> getChanges(long since, int size, Duration wait) {
+        validate(since, size);
+        if (wait.isNegative() || wait.compareTo(MAX_WAIT) > 0) {
+            throw new ApplicationException("Wait must be between PT0S and %s".formatted(MAX_WAIT), HttpStatus.BAD_REQUEST);
+        }
+
+        UserChangePageDto page = readPage(since, size);
+        if (!page.getChanges().isEmpty() || wait.isZero()) {
+            return CompletableFuture.completedFuture(page);
+        }
+
+        return awaitPublishedAfter(since)
+                .thenApply(published -> true)
+                .completeOnTimeout(false, wait.toNanos(), TimeUnit.NANOSECONDS)
+                .thenApplyAsync(published -> published ? readPage(since, size) : page, executor);
+    }
+
+    /**
+     * Sends the changes after {@code since} as server-sent events with the position as event id,
+     * first the backlog in batches of {@code size}, then new changes as they are published,
+     * until the emitter completes or times out.
+     */
+    public void streamChanges(SseEmitter emitter, long since, int size) {
+        validate(since, size);
+        StreamState state = new StreamState(emitter, size, since);
+        emitter.onCompletion(() -> state.closed = true);
+        emitter.onTimeout(() -> state.closed = true);
+        emitter.onError(e -> state.closed = true);
+        executor.execute(() -> stream(state));
+    }
+
+    /**
+     * Called by the relay with the last published position.
+     */
+    synchronized void advance(long seq) {
+        if (seq <= publishedSeq.get()) {
+            return;
+        }
+        publishedSeq.set(seq);
+        CompletableFuture<Void> published = nextPublish;
+        nextPublish = new CompletableFuture<>();
+        published.complete(null);
+    }
+
+    private CompletableFuture<Void> awaitPublishedAfter(long seq) {
+        // read the future before the position, an advance in between then completes the future read
+        CompletableFuture<Void> published = nextPublish;
+        return publishedSeq.get() > seq ? CompletableFuture.completedFuture(null) : published;
+    }
+
+    private void stream(StreamState state) {
+        try {
+            List<UserChangeDto> changes;
+            do {
+                if (state.closed) {
+                    return;
+                }
+                changes = read(state.since, state.size);
+                for (UserChangeDto change : changes) {
+                    state.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(change.getSeq()))
+                            .name(change.getType().getValue())
+                            .data(change, MediaType.APPLICATION_JSON));
+                    state.since = change.getSeq();
+                }
+            } while (changes.size() == state.size);
+
+            awaitPublishedAfter(state.since).thenRunAsync(() -> stream(state), executor);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Change stream closed at seq {}: {}", state.since, e.toString());
+            state.emitter.completeWithError(e);
+        }
+    }
+
+    private UserChangePageDto readPage(long since, int size) {
+        List<UserChangeDto> changes = read(since, size);
+        return new UserChangePageDto()
+                .changes(changes)
+                .lastSeq(changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq());
+    }
+
+    private List<UserChangeDto> read(long since, int size) {
+        return userEventRepository.findBySeqGreaterThanOrderBySeqAsc(since, Limit.of(size)).stream()
+                .map(userEventMapper::toDto)
+                .toList();
+    }
+
+    private static void validate(long since, int size) {
+        if (since < 0 || size <= 0 || size > MAX_CHANGES_SIZE) {
+            throw new ApplicationException("Since must not be negative and size must be between 1 and %s"
+                    .formatted(MAX_CHANGES_SIZE), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static final class StreamState {
+        private final SseEmitter emitter;
+        private final int size;
+        private volatile long since;
+        private volatile boolean closed;
+
+        private StreamState(SseEmitter emitter, int size, long since) {
+            this.emitter = emitter;
+            this.size = size;
+            this.since = since;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.exception.ApplicationException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset pagination, carrying the id of the last user on the previous page.
+ */
+final class UserCursor {
+
+    private UserCursor() {
+    }
+
+    static String encode(long lastId) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static long decode(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new ApplicationException("Invalid cursor %s".formatted(cursor), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.mapper.UserMapper;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.repository.UserRepository;
+import com.homework.morosystems.repository.UserView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+@Profile("!reactive")
+public class UserExportService {
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+
+    /**
+     * Passes every user ordered by id to the consumer. Rows are read over a database cursor as projections
+     * that the persistence context does not keep, so memory usage does not depend on the number of users.
+     *
+     * @param consumer receives the users one by one
+     * @return number of exported users
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(Consumer<UserGetDto> consumer) {
+        long count = 0;
+        try (Stream<UserView> users = userRepository.streamAllViews()) {
+            Iterator<UserView> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(userMapper.toDto(iterator.next()));
+                count++;
+            }
+        }
+
+        log.debug("Exported {} users", count);
+        return count;
+    }
+}
@@ -1,73 +1,304 @@
 package com.homework.morosystems.service;
 
+import com.homework.morosystems.configuration.CacheConfig;
+import com.homework.morosystems.configuration.PrimaryReads;
 import com.homework.morosystems.exception.ApplicationException;
 import com.homework.morosystems.mapper.UserMapper;
+import com.homework.morosystems.model.UserBatchConflictDto;
+import com.homework.morosystems.model.UserBatchCreateResponseDto;
 import com.homework.morosystems.model.UserCreateUpdateDto;
 import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.model.UserLookupResponseDto;
 import com.homework.morosystems.model.UserPageResponseDto;
 import com.homework.morosystems.repository.UserEntity;
+import com.homework.morosystems.repository.UserEventType;
 import com.homework.morosystems.repository.UserRepository;
+import com.homework.morosystems.repository.UserView;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Slf4j
 @RequiredArgsConstructor
 @Service
+@Profile("!reactive")
 public class UserService {
 
     public static final String ERR_MSG_USER_NOT_FOUND = "User with id %s not found";
+    public static final String ERR_MSG_USER_MODIFIED = "User with id %s has been modified by another request";
+    public static final int MAX_BATCH_SIZE = 10_000;
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+    public static final int MIN_SEARCH_LENGTH = 3;
+    public static final int MAX_SEARCH_SIZE = 100;
+    public static final int MAX_LOOKUP_SIZE = 1000;
+    private static final int CHANGE_STAMP_STRIPES = 4096;
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final SecurityUtil securityUtil;
+    private final AuthenticationCache authenticationCache;
+    private final UsernameFilter usernameFilter;
+    private final UserChangeLog userChangeLog;
+    private final TransactionOperations transactionOperations;
+    private final CacheManager cacheManager;
+    private final WriteCoalescer<Long, PendingUpdate, UserGetDto> updateCoalescer = new WriteCoalescer<>();
+    private final ChangeStamps changeStamps = new ChangeStamps(CHANGE_STAMP_STRIPES);
 
-    @Transactional(readOnly = true)
+    /**
+     * Returns the user from the cache, or reads it and adds it to the cache unless it changed meanwhile.
+     * A hit does not open a transaction. A miss is read from the primary, see {@link PrimaryReads}.
+     */
     public UserGetDto getUserById(Long id) {
-        return userRepository.findById(id)
+        Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        UserGetDto cached = cache != null ? cache.get(id, UserGetDto.class) : null;
+        if (cached != null) {
+            return cached;
+        }
+
+        long stamp = changeStamps.stamp(id);
+        UserGetDto user = PrimaryReads.read(() -> userRepository.findViewById(id))
                 .map(userMapper::toDto)
                 .orElseThrow(() -> new ApplicationException(ERR_MSG_USER_NOT_FOUND.formatted(id), HttpStatus.NOT_FOUND));
+        cacheIfUnchanged(cache, user, stamp);
+        return user;
     }
 
-    @Transactional
-    public void deleteUser(Long id) {
-        UserEntity userEntity = userRepository.findById(id)
-                .orElseThrow(() -> new ApplicationException(ERR_MSG_USER_NOT_FOUND.formatted(id), HttpStatus.NOT_FOUND));
+    /**
+     * Returns the users with the given ids in the order of the ids, without duplicates. Users in the cache
+     * are served from it, the others are read from the primary with a single query and added to the cache.
+     *
+     * @param ids at most {@value #MAX_LOOKUP_SIZE} ids
+     * @return the users found and the ids without a user
+     */
+    public UserLookupResponseDto getUsersByIds(List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_LOOKUP_SIZE) {
+            throw new ApplicationException("Lookup must contain 1 to %s ids".formatted(MAX_LOOKUP_SIZE), HttpStatus.BAD_REQUEST);
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new ApplicationException("Ids must not be null", HttpStatus.BAD_REQUEST);
+        }
 
-        if (!securityUtil.isCurrentAuthenticatedUsername(userEntity.getUsername())) {
-            throw new ApplicationException("Cannot to delete other user", HttpStatus.FORBIDDEN);
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        Map<Long, UserGetDto> users = new HashMap<>();
+        List<Long> notCached = new ArrayList<>();
+        for (Long id : distinctIds) {
+            UserGetDto cached = cache != null ? cache.get(id, UserGetDto.class) : null;
+            if (cached != null) {
+                users.put(id, cached);
+            } else {
+                notCached.add(id);
+            }
+        }
+
+        if (!notCached.isEmpty()) {
+            Map<Long, Long> stamps = new HashMap<>();
+            notCached.forEach(id -> stamps.put(id, changeStamps.stamp(id)));
+            for (UserView userView : PrimaryReads.read(() -> userRepository.findViewsByIdIn(notCached))) {
+                UserGetDto user = userMapper.toDto(userView);
+                users.put(user.getId(), user);
+                cacheIfUnchanged(cache, user, stamps.get(user.getId()));
+            }
         }
 
-        userRepository.deleteById(id);
+        UserLookupResponseDto response = new UserLookupResponseDto()
+                .users(new ArrayList<>(users.size()))
+                .missingIds(new ArrayList<>());
+        for (Long id : distinctIds) {
+            UserGetDto user = users.get(id);
+            if (user != null) {
+                response.addUsersItem(user);
+            } else {
+                response.addMissingIdsItem(id);
+            }
+        }
+        log.debug("Looked up {} users, {} from cache, {} missing", distinctIds.size(),
+                distinctIds.size() - notCached.size(), response.getMissingIds().size());
+        return response;
+    }
+
+    /**
+     * Deletes the user. The change is recorded and the cached copy evicted once the delete has committed,
+     * see {@link #evictChanged(Long)}.
+     */
+    public void deleteUser(Long id) {
+        String username = transactionOperations.execute(status -> {
+            UserEntity userEntity = userRepository.findById(id)
+                    .orElseThrow(() -> new ApplicationException(ERR_MSG_USER_NOT_FOUND.formatted(id), HttpStatus.NOT_FOUND));
+
+            if (!securityUtil.isCurrentAuthenticatedUsername(userEntity.getUsername())) {
+                throw new ApplicationException("Cannot to delete other user", HttpStatus.FORBIDDEN);
+            }
+
+            userRepository.deleteById(id);
+            userChangeLog.recordDeleted(id);
+            return userEntity.getUsername();
+        });
+        evictChanged(id);
+        authenticationCache.invalidate(username);
+        usernameFilter.remove(username);
         log.debug("User with id {} deleted", id);
     }
 
     @Transactional(readOnly = true)
     public UserPageResponseDto getUsersPageable(Integer page, Integer size) {
+        return getUsersPageable(page, size, true);
+    }
+
+    @Transactional(readOnly = true)
+    public UserPageResponseDto getUsersPageable(Integer page, Integer size, boolean includeTotal) {
         if (page < 0 || size <= 0) {
             throw new ApplicationException("Page and size must be greater than 0", HttpStatus.BAD_REQUEST);
         }
 
-        Pageable pageable = Pageable.ofSize(size).withPage(page);
-        Page<UserEntity> pageResult = userRepository.findAll(pageable);
-        List<UserGetDto> resultDtos = pageResult.get().map(userMapper::toDto).toList();
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        Slice<UserView> sliceResult = includeTotal
+                ? userRepository.findAllViews(pageable)
+                : userRepository.findAllViewsBy(pageable);
+        List<UserView> users = sliceResult.getContent();
+
+        UserPageResponseDto response = new UserViewPage(users, userMapper::toDto)
+                .currentPage(sliceResult.getNumber())
+                .pageSize(sliceResult.getSize())
+                .nextCursor(nextCursor(users, sliceResult.hasNext()));
 
-        return new UserPageResponseDto()
-                .content(resultDtos)
-                .currentPage(pageResult.getNumber())
-                .pageSize(pageResult.getSize())
-                .totalPages(pageResult.getTotalPages())
-                .totalElements(pageResult.getTotalElements());
+        if (sliceResult instanceof Page<UserView> pageResult) {
+            response.totalPages(pageResult.getTotalPages())
+                    .totalElements(pageResult.getTotalElements());
+        }
+        return response;
+    }
+
+    /**
+     * Finds users whose username or name contains the query, ignoring case. The query needs at least
+     * {@value #MIN_SEARCH_LENGTH} characters, so that the trigram index can narrow the candidates.
+     *
+     * @param query text to look for, {@code %} and {@code _} match literally
+     * @param size  page size, at most {@value #MAX_SEARCH_SIZE}
+     * @param after cursor of the previous page, or {@code null} for the first page
+     */
+    @Transactional(readOnly = true)
+    public UserPageResponseDto searchUsers(String query, Integer size, String after) {
+        String trimmedQuery = StringUtils.trimToEmpty(query);
+        if (trimmedQuery.length() < MIN_SEARCH_LENGTH) {
+            throw new ApplicationException("Search query must have at least %s characters".formatted(MIN_SEARCH_LENGTH), HttpStatus.BAD_REQUEST);
+        }
+        if (size <= 0 || size > MAX_SEARCH_SIZE) {
+            throw new ApplicationException("Size must be between 1 and %s".formatted(MAX_SEARCH_SIZE), HttpStatus.BAD_REQUEST);
+        }
+
+        long lastId = after != null ? UserCursor.decode(after) : 0L;
+        String pattern = "%" + escapeLikePattern(trimmedQuery) + "%";
+        List<UserView> users = userRepository.search(pattern, lastId, Limit.of(size + 1));
+        return keysetPage(users, size);
+    }
+
+    /**
+     * Returns a token that changes whenever any user is created, updated or deleted,
+     * so that clients can revalidate a page without reading it.
+     * <p>
+     * The token is taken from the outbox of the change feed, which every write appends to in its own transaction,
+     * so it costs a single-row read instead of an aggregate over all users.
+     */
+    @Transactional(readOnly = true)
+    public String getUsersRevision() {
+        return userChangeLog.revision();
+    }
+
+    @Transactional(readOnly = true)
+    public UserPageResponseDto getUsersAfter(String after, Integer size) {
+        if (size <= 0) {
+            throw new ApplicationException("Size must be greater than 0", HttpStatus.BAD_REQUEST);
+        }
+
+        long lastId = UserCursor.decode(after);
+        List<UserView> users = userRepository.findViewsByIdGreaterThan(lastId, Limit.of(size + 1));
+        return keysetPage(users, size);
     }
 
-    @Transactional
     public UserGetDto updateUser(Long id, UserCreateUpdateDto userDto) {
+        return updateUser(id, userDto, Set.of());
+    }
+
+    /**
+     * Updates the user. A new password is hashed before the transaction starts,
+     * so the database connection is held only for the read and the write; see {@link #encodeNewPassword(Long, String)}.
+     * The write is checked against the version that was read, so a concurrent update is rejected instead of lost.
+     * <p>
+     * Unconditional updates of the same user that arrive while another update of it is in progress are merged
+     * and applied in one transaction, in the order they arrived in; see {@link #applyUpdates(Long, List)}.
+     * <p>
+     * The cached copy is evicted rather than replaced: concurrent updates may return in another order than
+     * they committed in, and the last one to return would otherwise leave an outdated copy cached.
+     *
+     * @param expectedVersions versions the update may be applied to, empty to accept any version
+     */
+    public UserGetDto updateUser(Long id, UserCreateUpdateDto userDto, Set<Long> expectedVersions) {
+        String passwordHash = StringUtils.isNotBlank(userDto.getPassword())
+                ? encodeNewPassword(id, userDto.getPassword())
+                : null;
+
+        try {
+            // a conditional update depends on the version before it, so it is not merged with others
+            UserGetDto updated = expectedVersions.isEmpty()
+                    ? updateCoalescer.submit(id, new PendingUpdate(userDto, passwordHash, SecurityContextHolder.getContext()),
+                            this::applyUpdates)
+                    : committed(transactionOperations.execute(status -> applyUpdate(id, userDto, expectedVersions, passwordHash)));
+            evictChanged(id);
+            return updated;
+        } catch (OptimisticLockingFailureException e) {
+            HttpStatus status = expectedVersions.isEmpty() ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED;
+            throw new ApplicationException(ERR_MSG_USER_MODIFIED.formatted(id), status);
+        } catch (DataIntegrityViolationException e) {
+            // renamed to a username taken concurrently or missed by the username filter
+            throw new ApplicationException("User with username %s already exists".formatted(userDto.getUsername()), HttpStatus.CONFLICT);
+        }
+    }
+
+    /**
+     * Hashes the new password of the user, after a cheap check that the user exists and may be edited, so that
+     * a request the transaction would reject does not cost a hash. The check is repeated in the transaction.
+     * It reads from the primary, as a replica may not have a just created user yet.
+     */
+    private String encodeNewPassword(Long id, String password) {
+        UserView userView = PrimaryReads.read(() -> userRepository.findViewById(id))
+                .orElseThrow(() -> new ApplicationException(ERR_MSG_USER_NOT_FOUND.formatted(id), HttpStatus.NOT_FOUND));
+        if (!securityUtil.isCurrentAuthenticatedUsername(userView.username())) {
+            throw new ApplicationException("You cannot edit other users", HttpStatus.FORBIDDEN);
+        }
+        return securityUtil.encodePassword(password);
+    }
+
+    private SavedUpdate applyUpdate(Long id, UserCreateUpdateDto userDto, Set<Long> expectedVersions, String passwordHash) {
         UserEntity userEntity = userRepository.findById(id)
                 .orElseThrow(() -> new ApplicationException(ERR_MSG_USER_NOT_FOUND.formatted(id), HttpStatus.NOT_FOUND));
 
@@ -75,26 +306,123 @@ public class UserService {
             throw new ApplicationException("You cannot edit other users", HttpStatus.FORBIDDEN);
         }
 
-        if (!userEntity.getUsername().equals(userDto.getUsername())
-                && userRepository.existsByUsername(userDto.getUsername())) {
+        if (!expectedVersions.isEmpty() && !expectedVersions.contains(userEntity.getVersion())) {
+            throw new ApplicationException(ERR_MSG_USER_MODIFIED.formatted(id), HttpStatus.PRECONDITION_FAILED);
+        }
 
-            throw new ApplicationException("User with username %s already exists".formatted(userDto.getUsername()), HttpStatus.CONFLICT);
+        String previousUsername = userEntity.getUsername();
+        mergeUpdate(userEntity, userDto, passwordHash);
+        return new SavedUpdate(saveUpdate(userEntity), previousUsername);
+    }
+
+    /**
+     * Applies the merged updates of one user as if they ran one after another: each is checked against the user
+     * as the earlier ones left it, e.g. an update authenticated with the old username after a rename is forbidden.
+     * Rejected updates fail on their own, the others are written with a single flush and one change event,
+     * and all get the final user once the transaction has committed.
+     * <p>
+     * A rename to a username that was taken after its check only fails at the flush, which rolls back the whole
+     * transaction. The updates are then applied again one by one, so that only the rename fails.
+     */
+    private void applyUpdates(Long id, List<WriteCoalescer.Write<PendingUpdate, UserGetDto>> updates) {
+        List<WriteCoalescer.Write<PendingUpdate, UserGetDto>> applied = new ArrayList<>(updates.size());
+        Map<WriteCoalescer.Write<PendingUpdate, UserGetDto>, ApplicationException> rejected = new IdentityHashMap<>();
+        SavedUpdate saved;
+        try {
+            saved = transactionOperations.execute(status -> {
+                UserEntity userEntity = userRepository.findById(id)
+                        .orElseThrow(() -> new ApplicationException(ERR_MSG_USER_NOT_FOUND.formatted(id), HttpStatus.NOT_FOUND));
+                String previousUsername = userEntity.getUsername();
+
+                for (WriteCoalescer.Write<PendingUpdate, UserGetDto> update : updates) {
+                    PendingUpdate pendingUpdate = update.value();
+                    try {
+                        if (!isAuthenticatedAs(pendingUpdate.securityContext(), userEntity.getUsername())) {
+                            throw new ApplicationException("You cannot edit other users", HttpStatus.FORBIDDEN);
+                        }
+                        mergeUpdate(userEntity, pendingUpdate.userDto(), pendingUpdate.passwordHash());
+                        applied.add(update);
+                    } catch (ApplicationException e) {
+                        rejected.put(update, e);
+                    }
+                }
+                return applied.isEmpty() ? null : new SavedUpdate(saveUpdate(userEntity), previousUsername);
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (updates.size() == 1) {
+                throw e;
+            }
+            log.debug("Merged updates of user with id {} hit a username taken concurrently, applying them one by one", id);
+            for (WriteCoalescer.Write<PendingUpdate, UserGetDto> update : updates) {
+                try {
+                    applyUpdates(id, List.of(update));
+                } catch (RuntimeException updateException) {
+                    update.fail(updateException);
+                }
+            }
+            return;
         }
+        // only after the commit, a retry one by one may still accept them
+        rejected.forEach(WriteCoalescer.Write::fail);
+        UserGetDto updated = saved != null ? committed(saved) : null;
 
+        if (updates.size() > 1) {
+            log.debug("Merged {} updates of user with id {}, {} applied", updates.size(), id, applied.size());
+        }
+        applied.forEach(update -> update.complete(updated));
+    }
+
+    private boolean isAuthenticatedAs(SecurityContext securityContext, String username) {
+        try {
+            return DelegatingSecurityContextCallable.create(() -> securityUtil.isCurrentAuthenticatedUsername(username),
+                    securityContext).call();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void mergeUpdate(UserEntity userEntity, UserCreateUpdateDto userDto, String passwordHash) {
+        if (!userEntity.getUsername().equals(userDto.getUsername())) {
+            if (usernameFilter.mightExist(userDto.getUsername()) && userRepository.existsByUsername(userDto.getUsername())) {
+                throw new ApplicationException("User with username %s already exists".formatted(userDto.getUsername()), HttpStatus.CONFLICT);
+            }
+        }
+
+        authenticationCache.invalidate(userEntity.getUsername());
         userMapper.updateEntityFromDto(userDto, userEntity);
-        if (StringUtils.isNotBlank(userDto.getPassword())) {
-            userEntity.setPassword(securityUtil.encodePassword(userDto.getPassword()));
-            log.debug("Password updated for user with id {}", id);
+        if (passwordHash != null) {
+            userEntity.setPassword(passwordHash);
+            log.debug("Password updated for user with id {}", userEntity.getId());
+        }
+    }
+
+    /**
+     * Tells the username filter about a committed rename, once per transaction however many updates it merged.
+     */
+    private UserGetDto committed(SavedUpdate saved) {
+        UserGetDto user = saved.user();
+        if (!user.getUsername().equals(saved.previousUsername())) {
+            usernameFilter.add(user.getUsername());
+            usernameFilter.remove(saved.previousUsername());
         }
-        userEntity = userRepository.save(userEntity);
+        return user;
+    }
+
+    private UserGetDto saveUpdate(UserEntity userEntity) {
+        // flush now, so that the returned version is the incremented one
+        userEntity = userRepository.saveAndFlush(userEntity);
+        userChangeLog.record(UserEventType.UPDATED, userEntity);
 
-        log.debug("User with id {} updated", id);
+        log.debug("User with id {} updated", userEntity.getId());
         return userMapper.toDto(userEntity);
     }
 
-    @Transactional
+    /**
+     * Creates the user. The password is hashed outside of any transaction, the insert runs in its own.
+     */
+    @CachePut(cacheNames = CacheConfig.USERS_CACHE, key = "#result.id")
     public UserGetDto createUser(UserCreateUpdateDto userDto) {
-        if (userRepository.existsByUsername(userDto.getUsername())) {
+        if (usernameFilter.mightExist(userDto.getUsername()) && userRepository.existsByUsername(userDto.getUsername())) {
             throw new ApplicationException("User with username %s already exists".formatted(userDto.getUsername()), HttpStatus.CONFLICT);
         }
 
@@ -102,11 +430,191 @@ public class UserService {
             throw new ApplicationException("Password cannot be empty", HttpStatus.BAD_REQUEST);
         }
 
-        UserEntity userEntity = userMapper.toEntity(userDto);
-        userEntity.setPassword(securityUtil.encodePassword(userDto.getPassword()));
-        userEntity = userRepository.save(userEntity);
+        String passwordHash = securityUtil.encodePassword(userDto.getPassword());
 
-        log.debug("Created new user with id {}", userEntity.getId());
-        return userMapper.toDto(userEntity);
+        try {
+            UserGetDto created = transactionOperations.execute(status -> {
+                UserEntity userEntity = userMapper.toEntity(userDto);
+                userEntity.setPassword(passwordHash);
+                userEntity = userRepository.save(userEntity);
+                userChangeLog.record(UserEventType.CREATED, userEntity);
+
+                log.debug("Created new user with id {}", userEntity.getId());
+                return userMapper.toDto(userEntity);
+            });
+            usernameFilter.add(userDto.getUsername());
+            return created;
+        } catch (DataIntegrityViolationException e) {
+            throw new ApplicationException("User with username %s already exists".formatted(userDto.getUsername()), HttpStatus.CONFLICT);
+        }
+    }
+
+    /**
+     * Creates all users that do not clash with an existing username or an earlier username in the same batch.
+     * Existing usernames are looked up with a single query, passwords are hashed in parallel before the transaction
+     * starts and the inserts are sent to the database in JDBC batches.
+     *
+     * @param userDtos users to create
+     * @return ids of the created users and the rejected items
+     */
+    public UserBatchCreateResponseDto createUsers(List<UserCreateUpdateDto> userDtos) {
+        if (userDtos.isEmpty() || userDtos.size() > MAX_BATCH_SIZE) {
+            throw new ApplicationException("Batch must contain 1 to %s users".formatted(MAX_BATCH_SIZE), HttpStatus.BAD_REQUEST);
+        }
+
+        List<String> possiblyTaken = userDtos.stream()
+                .map(UserCreateUpdateDto::getUsername)
+                .filter(usernameFilter::mightExist)
+                .toList();
+        Set<String> takenUsernames = possiblyTaken.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(userRepository.findExistingUsernames(possiblyTaken));
+
+        UserBatchCreateResponseDto response = new UserBatchCreateResponseDto();
+        List<UserCreateUpdateDto> accepted = new ArrayList<>();
+        for (int i = 0; i < userDtos.size(); i++) {
+            UserCreateUpdateDto userDto = userDtos.get(i);
+            if (StringUtils.isBlank(userDto.getPassword())) {
+                response.addConflictsItem(batchConflict(i, userDto, "Password cannot be empty"));
+            } else if (!takenUsernames.add(userDto.getUsername())) {
+                response.addConflictsItem(batchConflict(i, userDto, "User with username %s already exists".formatted(userDto.getUsername())));
+            } else {
+                accepted.add(userDto);
+            }
+        }
+
+        List<String> passwordHashes = securityUtil.encodePasswords(accepted.stream().map(UserCreateUpdateDto::getPassword).toList());
+        Map<UserCreateUpdateDto, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < userDtos.size(); i++) {
+            indexes.put(userDtos.get(i), i);
+        }
+
+        List<UserEntity> userEntities = toEntities(accepted, passwordHashes);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<UserEntity> toSave = userEntities;
+                // the inserts are batched until the commit, which may still fail, so the ids are only reported after it
+                List<Long> createdIds = transactionOperations.execute(status -> {
+                    List<UserEntity> saved = userRepository.saveAll(toSave);
+                    userChangeLog.recordAll(UserEventType.CREATED, saved);
+                    return saved.stream().map(UserEntity::getId).toList();
+                });
+                createdIds.forEach(response::addCreatedIdsItem);
+                break;
+            } catch (DataIntegrityViolationException e) {
+                // a concurrent create took a username between the lookup and the insert; read on the primary,
+                // as a replica may not have the row yet
+                List<String> usernames = accepted.stream().map(UserCreateUpdateDto::getUsername).toList();
+                Set<String> taken = PrimaryReads.read(() -> userRepository.findExistingUsernames(usernames));
+                if (taken == null || taken.isEmpty() || attempt == MAX_BATCH_ATTEMPTS) {
+                    throw new ApplicationException("Users could not be created because of a concurrent change, try again", HttpStatus.CONFLICT);
+                }
+
+                List<UserCreateUpdateDto> remaining = new ArrayList<>(accepted.size());
+                List<String> remainingHashes = new ArrayList<>(accepted.size());
+                for (int i = 0; i < accepted.size(); i++) {
+                    UserCreateUpdateDto userDto = accepted.get(i);
+                    if (taken.contains(userDto.getUsername())) {
+                        response.addConflictsItem(batchConflict(indexes.get(userDto), userDto,
+                                "User with username %s already exists".formatted(userDto.getUsername())));
+                    } else {
+                        remaining.add(userDto);
+                        remainingHashes.add(passwordHashes.get(i));
+                    }
+                }
+                log.debug("Batch insert hit {} concurrently created usernames, retrying without them", taken.size());
+                accepted = remaining;
+                passwordHashes = remainingHashes;
+                // the entities of the failed attempt may already carry ids of the rolled back insert
+                userEntities = toEntities(accepted, passwordHashes);
+            }
+        }
+        userEntities.forEach(userEntity -> usernameFilter.add(userEntity.getUsername()));
+        if (response.getConflicts() != null) {
+            response.getConflicts().sort(Comparator.comparing(UserBatchConflictDto::getIndex));
+        }
+
+        log.debug("Created {} users in batch, {} rejected", userEntities.size(), userDtos.size() - userEntities.size());
+        return response;
+    }
+
+    private List<UserEntity> toEntities(List<UserCreateUpdateDto> userDtos, List<String> passwordHashes) {
+        List<UserEntity> userEntities = new ArrayList<>(userDtos.size());
+        for (int i = 0; i < userDtos.size(); i++) {
+            UserEntity userEntity = userMapper.toEntity(userDtos.get(i));
+            userEntity.setPassword(passwordHashes.get(i));
+            userEntities.add(userEntity);
+        }
+        return userEntities;
+    }
+
+    /**
+     * Records a committed change of the user and evicts its cached copy. Must run after the commit: a read that
+     * started between a change recorded earlier and the commit would still see the old row, and put it back after
+     * the eviction with a stamp that looks current.
+     */
+    private void evictChanged(Long id) {
+        changeStamps.changed(id);
+        Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        if (cache != null) {
+            cache.evict(id);
+        }
+    }
+
+    /**
+     * Adds the user read from the database to the cache. A read that raced with an update or a delete could put
+     * back a stale copy after the change evicted it, so the copy is removed again if the user changed meanwhile.
+     *
+     * @param stamp {@link ChangeStamps#stamp(long)} taken before the user was read
+     */
+    private void cacheIfUnchanged(Cache cache, UserGetDto user, long stamp) {
+        if (cache == null || changeStamps.stamp(user.getId()) != stamp) {
+            return;
+        }
+        // does not replace a newer copy put by a concurrent update
+        cache.putIfAbsent(user.getId(), user);
+        if (changeStamps.stamp(user.getId()) != stamp) {
+            cache.evict(user.getId());
+        }
+    }
+
+    private static UserBatchConflictDto batchConflict(int index, UserCreateUpdateDto userDto, String message) {
+        return new UserBatchConflictDto()
+                .index(index)
+                .username(userDto.getUsername())
+                .message(message);
+    }
+
+    private static String escapeLikePattern(String text) {
+        return text.replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+    }
+
+    /**
+     * @param users up to one user more than the page size, which only tells that there is a next page
+     */
+    private UserPageResponseDto keysetPage(List<UserView> users, int size) {
+        boolean hasNext = users.size() > size;
+        List<UserView> content = hasNext ? users.subList(0, size) : users;
+        return new UserViewPage(content, userMapper::toDto)
+                .pageSize(size)
+                .nextCursor(nextCursor(content, hasNext));
+    }
+
+    private static String nextCursor(List<UserView> content, boolean hasNext) {
+        return hasNext ? UserCursor.encode(content.get(content.size() - 1).id()) : null;
+    }
+
+    /**
+     * Update waiting to be merged, with the security context of the request it came with.
+     */
+    private record PendingUpdate(UserCreateUpdateDto userDto, String passwordHash, SecurityContext securityContext) {
+    }
+
+    /**
+     * Update written in a transaction that is yet to commit, with the username the user had before it.
+     */
+    private record SavedUpdate(UserGetDto user, String previousUsername) {
     }
 }
@@ -0,0 +1,40 @@
+package com.homework.morosystems.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.model.UserPageResponseDto;
+import com.homework.morosystems.repository.UserView;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page of users backed by the projections read from the database. The {@code GET /users} response is written
+ * straight from {@link #getViews()}, see {@code UserPageHttpMessageConverter}; the DTOs of {@link #getContent()}
+ * are only mapped when it is called.
+ */
+public class UserViewPage extends UserPageResponseDto {
+
+    private final List<UserView> views;
+    private final Function<UserView, UserGetDto> mapper;
+    private List<UserGetDto> mappedContent;
+
+    public UserViewPage(List<UserView> views, Function<UserView, UserGetDto> mapper) {
+        this.views = views;
+        this.mapper = mapper;
+    }
+
+    @JsonIgnore
+    public List<UserView> getViews() {
+        return views;
+    }
+
+    @Override
+    public List<UserGetDto> getContent() {
+        if (mappedContent == null) {
+            mappedContent = views.stream().map(mapper).toList();
+            setContent(mappedContent);
+        }
+        return mappedContent;
+    }
+}
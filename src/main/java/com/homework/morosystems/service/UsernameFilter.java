@@ -0,0 +1,216 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter of existing usernames, so that the username checks of signups and renames skip the
+ * database for usernames that certainly do not exist. Built in the background by streaming the usernames from
+ * the primary once the application is ready; until then every username is reported as possibly existing.
+ * <p>
+ * Created and renamed usernames are added as they are written. Deleted and renamed-away usernames cannot be
+ * removed from a Bloom filter, they only raise the false positive rate and are counted as stale until the next
+ * rebuild, which runs every {@code rebuild-interval}. The filter only sees writes made through this application
+ * instance, so with several instances it misses usernames created elsewhere until then. It is therefore disabled
+ * by default and only ever used where a false negative is caught by the unique constraint of the username;
+ * authentication always asks the database.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class UsernameFilter implements DisposableBean {
+
+    private static final String METRIC_PREFIX = "app.username.filter";
+
+    private final UserRepository userRepository;
+    private final TransactionOperations transactionOperations;
+    private final boolean enabled;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final Duration rebuildInterval;
+    private final ScheduledExecutorService rebuilder;
+    private final Counter skippedCounter;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter building;
+
+    public UsernameFilter(UserRepository userRepository,
+                          TransactionOperations transactionOperations,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.users.username-filter.enabled:false}") boolean enabled,
+                          @Value("${app.users.username-filter.expected-users:1000000}") long expectedUsers,
+                          @Value("${app.users.username-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                          @Value("${app.users.username-filter.rebuild-interval:PT1H}") Duration rebuildInterval) {
+        this.userRepository = userRepository;
+        this.transactionOperations = transactionOperations;
+        this.enabled = enabled;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildInterval = rebuildInterval;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("username-filter-rebuild-");
+        threadFactory.setDaemon(true);
+        this.rebuilder = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        this.skippedCounter = Counter.builder(METRIC_PREFIX + ".skipped")
+                .description("Username lookups answered without the database")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".entries", entries, AtomicLong::get)
+                .description("Usernames added to the filter since the last rebuild")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".stale", stale, AtomicLong::get)
+                .description("Usernames removed since the last rebuild that the filter still reports")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return false if the user certainly does not exist, true if it may exist and the database must be asked
+     */
+    public boolean mightExist(String username) {
+        BloomFilter filter = current;
+        if (filter == null || filter.mightContain(username)) {
+            return true;
+        }
+        skippedCounter.increment();
+        return false;
+    }
+
+    /**
+     * Adds a username once its write has committed. A rebuild that started before the commit may have missed the row,
+     * the username then goes into its filter whether it is still building or already done; one that starts later
+     * reads the row.
+     */
+    public void add(String username) {
+        // read building before current, a swap in between then leaves the username in the new filter
+        BloomFilter next = building;
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.add(username);
+            entries.incrementAndGet();
+        }
+        if (next != null) {
+            next.add(username);
+        }
+    }
+
+    /**
+     * Records that a username no longer exists, once its delete or rename has committed.
+     */
+    public void remove(String username) {
+        if (current != null) {
+            stale.incrementAndGet();
+        }
+    }
+
+    /**
+     * Builds the filter and then rebuilds it every {@code rebuild-interval}, {@code PT0S} builds it only once.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (rebuildInterval.isPositive()) {
+            rebuilder.scheduleWithFixedDelay(this::scheduledRebuild, 0, rebuildInterval.toNanos(), TimeUnit.NANOSECONDS);
+        } else {
+            rebuilder.execute(this::scheduledRebuild);
+        }
+    }
+
+    private void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // an exception would cancel the schedule, the current filter stays in use
+            log.warn("Rebuilding the username filter failed, retrying in {}", rebuildInterval, e);
+        }
+    }
+
+    /**
+     * Replaces the filter with one built from the usernames currently in the database, sized for the larger
+     * of {@code expected-users} and twice the current number of users.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        rebuildLock.lock();
+        try {
+            long startNanos = System.nanoTime();
+            BloomFilter next = BloomFilter.create(Math.max(expectedUsers, 2 * userRepository.count()), falsePositiveRate);
+            building = next;
+
+            // a read-write transaction, so that the usernames are read from the primary even with read replicas:
+            // a lagging replica would leave out the newest ones
+            long count = transactionOperations.execute(status -> {
+                long added = 0;
+                try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+                    for (Iterator<String> iterator = usernames.iterator(); iterator.hasNext(); added++) {
+                        next.add(iterator.next());
+                    }
+                }
+                return added;
+            });
+
+            current = next;
+            building = null;
+            entries.set(count);
+            stale.set(0);
+            log.info("Username filter built with {} usernames in {} ms, {} KiB", count,
+                    (System.nanoTime() - startNanos) / 1_000_000, next.bitSize() / 8 / 1024);
+        } finally {
+            building = null;
+            rebuildLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        rebuilder.shutdownNow();
+    }
+
+    public Stats stats() {
+        BloomFilter filter = current;
+        if (filter == null) {
+            return new Stats(false, 0, 0, 0, 0, 1);
+        }
+
+        // (1 - e^(-k * n / m))^k
+        long count = entries.get();
+        double falsePositiveRate = Math.pow(1 - Math.exp(-filter.hashes() * (double) count / filter.bitSize()), filter.hashes());
+        return new Stats(true, count, stale.get(), filter.bitSize() / 8, filter.hashes(), falsePositiveRate);
+    }
+
+    /**
+     * @param entries           usernames added since the last rebuild, including repeated ones
+     * @param stale             usernames removed since the last rebuild
+     * @param sizeBytes         memory taken by the filter bits
+     * @param falsePositiveRate expected false positive rate at the current number of entries
+     */
+    public record Stats(boolean ready, long entries, long stale, long sizeBytes, int hashes, double falsePositiveRate) {
+    }
+}
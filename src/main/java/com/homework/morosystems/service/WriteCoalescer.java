@@ -0,0 +1,206 @@
+package com.homework.morosystems.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Merges concurrent writes to the same key. Writes to a key run one batch at a time, guarded by a lock of that key;
+ * writes that arrive while a batch is waiting for its lock join that batch. The first write of a batch leads it:
+ * once it holds the lock, it closes the batch and applies all of its writes at once on its own thread,
+ * while the others wait for their outcome.
+ * <p>
+ * The writes of a batch are in the order they arrived in. Writes to different keys never wait for each other.
+ * Only {@link ReentrantLock}s are used, so a virtual thread waiting for a batch does not pin its carrier.
+ *
+ * @param <K> key, e.g. an entity id
+ * @param <T> write
+ * @param <R> outcome of a write
+ */
+final class WriteCoalescer<K, T, R> {
+
+    private final ConcurrentMap<K, KeyLock> keyLocks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<K, Batch<T, R>> openBatches = new ConcurrentHashMap<>();
+
+    /**
+     * Applies the write together with the writes to the same key that arrive meanwhile.
+     *
+     * @param key    key written to
+     * @param value  the write
+     * @param writer applies a batch and completes each of its writes; writes it leaves open fail with its exception
+     *               or an {@link IllegalStateException}, an {@link Error} is rethrown as is by every write of the batch
+     * @return the outcome the writer completed this write with
+     */
+    R submit(K key, T value, BiConsumer<K, List<Write<T, R>>> writer) {
+        Write<T, R> write = new Write<>(value);
+        while (true) {
+            Batch<T, R> batch = openBatches.computeIfAbsent(key, k -> new Batch<>());
+            int position = batch.add(write);
+            if (position == 0) {
+                lead(key, batch, writer);
+            }
+            if (position >= 0) {
+                return write.outcome();
+            }
+            // closed by its leader between the lookup and the add
+        }
+    }
+
+    /**
+     * @return number of writes waiting in the open batch of the key
+     */
+    int waiting(K key) {
+        Batch<T, R> batch = openBatches.get(key);
+        return batch != null ? batch.size() : 0;
+    }
+
+    /**
+     * @return number of keys whose lock is held or waited for
+     */
+    int lockedKeys() {
+        return keyLocks.size();
+    }
+
+    private void lead(K key, Batch<T, R> batch, BiConsumer<K, List<Write<T, R>>> writer) {
+        KeyLock lock = lock(key);
+        try {
+            openBatches.remove(key, batch);
+            List<Write<T, R>> writes = batch.close();
+            try {
+                writer.accept(key, writes);
+            } catch (Throwable e) {
+                writes.forEach(w -> w.fail(e));
+                if (e instanceof Error error) {
+                    throw error;
+                }
+            } finally {
+                // whatever happened, no write may be left waiting
+                writes.forEach(w -> w.fail(new IllegalStateException("Write to " + key + " was not applied")));
+            }
+        } finally {
+            unlock(key, lock);
+        }
+    }
+
+    /**
+     * Takes the lock of the key, creating it for the first user.
+     */
+    private KeyLock lock(K key) {
+        KeyLock lock = keyLocks.compute(key, (k, current) -> {
+            KeyLock keyLock = current != null ? current : new KeyLock();
+            keyLock.users++;
+            return keyLock;
+        });
+        lock.lock.lock();
+        return lock;
+    }
+
+    /**
+     * Releases the lock of the key, removing it after its last user.
+     */
+    private void unlock(K key, KeyLock lock) {
+        lock.lock.unlock();
+        keyLocks.computeIfPresent(key, (k, current) -> --current.users == 0 ? null : current);
+    }
+
+    /**
+     * A write of a batch, completed by the writer.
+     */
+    static final class Write<T, R> {
+
+        private final T value;
+        private final CompletableFuture<R> outcome = new CompletableFuture<>();
+
+        private Write(T value) {
+            this.value = value;
+        }
+
+        T value() {
+            return value;
+        }
+
+        void complete(R result) {
+            outcome.complete(result);
+        }
+
+        /**
+         * Fails the write unless it is already completed.
+         */
+        void fail(Throwable e) {
+            outcome.completeExceptionally(e);
+        }
+
+        private R outcome() {
+            try {
+                return outcome.join();
+            } catch (CompletionException e) {
+                // the exception of the writer as is, with the stack trace of the leading thread
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    /**
+     * Lock of a key, with the number of threads holding or waiting for it; only changed inside
+     * {@link ConcurrentMap#compute}, which runs atomically for the key.
+     */
+    private static final class KeyLock {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private int users;
+    }
+
+    private static final class Batch<T, R> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final List<Write<T, R>> writes = new ArrayList<>();
+        private boolean closed;
+
+        /**
+         * @return position of the write in the batch, -1 if the batch is already closed
+         */
+        int add(Write<T, R> write) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return -1;
+                }
+                writes.add(write);
+                return writes.size() - 1;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<Write<T, R>> close() {
+            lock.lock();
+            try {
+                closed = true;
+                return List.copyOf(writes);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return writes.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.homework.morosystems.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LiquibaseFingerprintTest {
+
+    private static final String CHANGELOG = "classpath:db/changelog/db.changelog-master.xml";
+
+    private final HikariDataSource dataSource = dataSource();
+    private final LiquibaseFingerprint liquibaseFingerprint = new LiquibaseFingerprint();
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void liquibase_runsOnFirstStartAndIsSkippedWhileUnchanged() throws LiquibaseException {
+        ObservedLiquibase first = start(null);
+        ObservedLiquibase second = start(null);
+
+        assertThat(first.shouldRun()).isTrue();
+        assertThat(second.shouldRun()).isFalse();
+        assertThat(new JdbcTemplate(dataSource).queryForObject("select hash from changelog_fingerprint", String.class))
+                .isEqualTo(LiquibaseFingerprint.fingerprint(first));
+    }
+
+    @Test
+    void liquibase_runsWhenContextsChange() throws LiquibaseException {
+        start(null);
+
+        ObservedLiquibase withContexts = start("replica");
+
+        assertThat(withContexts.shouldRun()).isTrue();
+        assertThat(start("replica").shouldRun()).isFalse();
+    }
+
+    private ObservedLiquibase start(String contexts) throws LiquibaseException {
+        ObservedLiquibase liquibase = new ObservedLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog(CHANGELOG);
+        liquibase.setContexts(contexts);
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+
+        liquibaseFingerprint.postProcessBeforeInitialization(liquibase, "liquibase");
+        liquibase.afterPropertiesSet();
+        liquibaseFingerprint.postProcessAfterInitialization(liquibase, "liquibase");
+        return liquibase;
+    }
+
+    private static HikariDataSource dataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:fingerprint;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private static class ObservedLiquibase extends SpringLiquibase {
+
+        boolean shouldRun() {
+            return shouldRun;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.homework.morosystems.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HikariDataSource primary = pool("primary");
+    private final HikariDataSource replica = pool("replica");
+    private final ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica),
+            new ReadReplicaProperties(true, List.of(), ReadReplicaProperties.Selection.ROUND_ROBIN,
+                    Duration.ofHours(1), Duration.ofSeconds(10), Duration.ofSeconds(5)),
+            new ReadYourWrites(Duration.ofSeconds(5), 100), meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        routingDataSource.destroy();
+        primary.close();
+    }
+
+    @Test
+    void getConnection_usesHealthyReplica() throws SQLException {
+        routingDataSource.checkHealth();
+
+        assertThat(database(routingDataSource)).isEqualTo("REPLICA");
+        assertThat(meterRegistry.get("app.datasource.replica.healthy").tag("replica", "replica").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void getConnection_fallsBackToPrimaryWhenReplicaIsDown() throws SQLException {
+        routingDataSource.checkHealth();
+        replica.close();
+        routingDataSource.checkHealth();
+
+        assertThat(database(routingDataSource)).isEqualTo("PRIMARY");
+        assertThat(meterRegistry.get("app.datasource.read.connections").tags("target", "primary", "reason", "fallback").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void getConnection_readsOwnWritesFromPrimary() throws SQLException {
+        routingDataSource.checkHealth();
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated("alice", null, List.of()));
+        assertThat(database(routingDataSource)).isEqualTo("REPLICA");
+
+        assertThat(database(routingDataSource.trackWrites(primary))).isEqualTo("PRIMARY");
+
+        assertThat(database(routingDataSource)).isEqualTo("PRIMARY");
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated("bob", null, List.of()));
+        assertThat(database(routingDataSource)).isEqualTo("REPLICA");
+    }
+
+    @Test
+    void getConnection_countsOnlyCommittedWritesForReadYourWrites() throws SQLException {
+        routingDataSource.checkHealth();
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated("alice", null, List.of()));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(database(routingDataSource.trackWrites(primary))).isEqualTo("PRIMARY");
+            assertThat(database(routingDataSource)).isEqualTo("REPLICA");
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(database(routingDataSource)).isEqualTo("PRIMARY");
+    }
+
+    @Test
+    void getConnection_usesPrimaryForPrimaryReadsWithoutTrackingThem() throws SQLException {
+        routingDataSource.checkHealth();
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated("alice", null, List.of()));
+
+        assertThat(PrimaryReads.read(() -> uncheckedDatabase(routingDataSource))).isEqualTo("PRIMARY");
+
+        assertThat(database(routingDataSource)).isEqualTo("REPLICA");
+        assertThat(meterRegistry.get("app.datasource.read.connections").tags("target", "primary", "reason", "requested").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void getConnection_withCredentialsUsesPrimary() throws SQLException {
+        JdbcDataSource unpooledPrimary = new JdbcDataSource();
+        unpooledPrimary.setURL("jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1");
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(unpooledPrimary, List.of(replica),
+                new ReadReplicaProperties(true, List.of(), ReadReplicaProperties.Selection.ROUND_ROBIN,
+                        Duration.ofHours(1), Duration.ofSeconds(10), Duration.ofSeconds(5)),
+                new ReadYourWrites(Duration.ofSeconds(5), 100), meterRegistry);
+        dataSource.checkHealth();
+
+        try (Connection connection = dataSource.getConnection("sa", "")) {
+            assertThat(connection.getCatalog()).isEqualTo("PRIMARY");
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    private static String uncheckedDatabase(DataSource dataSource) {
+        try {
+            return database(dataSource);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String database(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getCatalog();
+        }
+    }
+
+    private static HikariDataSource pool(String name) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        pool.setConnectionTimeout(500);
+        return pool;
+    }
+}
@@ -0,0 +1,36 @@
+package com.homework.morosystems.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimedPasswordEncoderTest {
+
+    private final PasswordEncoder delegate = mock(PasswordEncoder.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TimedPasswordEncoder passwordEncoder = new TimedPasswordEncoder(delegate, meterRegistry);
+
+    @Test
+    void matches_recordsResult() {
+        when(delegate.matches("right", "HASHED")).thenReturn(true);
+
+        assertThat(passwordEncoder.matches("right", "HASHED")).isTrue();
+        assertThat(passwordEncoder.matches("wrong", "HASHED")).isFalse();
+        assertThat(passwordEncoder.matches("wrong", "HASHED")).isFalse();
+
+        assertThat(meterRegistry.get("app.password.matching.duration").tag("result", "match").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("app.password.matching.duration").tag("result", "mismatch").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void upgradeEncoding_delegates() {
+        when(delegate.upgradeEncoding("OLD")).thenReturn(true);
+
+        assertThat(passwordEncoder.upgradeEncoding("OLD")).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding("NEW")).isFalse();
+    }
+}
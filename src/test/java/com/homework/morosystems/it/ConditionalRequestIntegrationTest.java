@@ -0,0 +1,105 @@
+package com.homework.morosystems.it;
+
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.model.UserPageResponseDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ConditionalRequestIntegrationTest extends PostgresSQLTestContainerTest {
+
+    private static final String PASSWORD = "secret12345";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Test
+    void getUserById_returns304UntilUserChanges() {
+        // Arrange
+        String baseUrl = "http://localhost:%s/users".formatted(port);
+        UserCreateUpdateDto request = new UserCreateUpdateDto()
+                .name("Bob")
+                .username("bob123")
+                .password(PASSWORD);
+        ResponseEntity<UserGetDto> created = rest.postForEntity(baseUrl, request, UserGetDto.class);
+        String userUrl = baseUrl + "/" + created.getBody().getId();
+        String eTag = created.getHeaders().getETag();
+
+        // Act & Assert
+        assertThat(eTag).isEqualTo("\"0\"");
+        assertThat(get(userUrl, eTag, UserGetDto.class).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        ResponseEntity<UserGetDto> updated = put(userUrl, request.name("Bobby"), eTag);
+        assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(updated.getHeaders().getETag()).isEqualTo("\"1\"");
+
+        ResponseEntity<UserGetDto> changed = get(userUrl, eTag, UserGetDto.class);
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getBody().getName()).isEqualTo("Bobby");
+    }
+
+    @Test
+    void updateUser_returns412OnStaleIfMatch() {
+        // Arrange
+        String baseUrl = "http://localhost:%s/users".formatted(port);
+        UserCreateUpdateDto request = new UserCreateUpdateDto()
+                .name("Carol")
+                .username("carol123")
+                .password(PASSWORD);
+        ResponseEntity<UserGetDto> created = rest.postForEntity(baseUrl, request, UserGetDto.class);
+        String userUrl = baseUrl + "/" + created.getBody().getId();
+        String staleETag = created.getHeaders().getETag();
+        put(userUrl, request.name("Caroline"), staleETag);
+
+        // Act
+        ResponseEntity<UserGetDto> result = put(userUrl, request.name("Carrie"), staleETag);
+
+        // Assert
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(rest.getForObject(userUrl, UserGetDto.class).getName()).isEqualTo("Caroline");
+    }
+
+    @Test
+    void getAllUsers_returns304UntilAnyUserChanges() {
+        // Arrange
+        String baseUrl = "http://localhost:%s/users".formatted(port);
+        String pageUrl = baseUrl + "?size=10";
+        String eTag = get(pageUrl, null, UserPageResponseDto.class).getHeaders().getETag();
+
+        // Act & Assert
+        assertThat(get(pageUrl, eTag, UserPageResponseDto.class).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        rest.postForEntity(baseUrl, new UserCreateUpdateDto().name("Dave").username("dave123").password(PASSWORD), UserGetDto.class);
+
+        assertThat(get(pageUrl, eTag, UserPageResponseDto.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private <T> ResponseEntity<T> get(String url, String ifNoneMatch, Class<T> type) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return rest.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), type);
+    }
+
+    private ResponseEntity<UserGetDto> put(String url, UserCreateUpdateDto user, String ifMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch(ifMatch);
+        return rest.withBasicAuth(user.getUsername(), PASSWORD)
+                .exchange(url, HttpMethod.PUT, new HttpEntity<>(user, headers), UserGetDto.class);
+    }
+}
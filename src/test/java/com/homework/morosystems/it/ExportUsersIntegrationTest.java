@@ -0,0 +1,79 @@
+package com.homework.morosystems.it;
+
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports one million users. Run by the {@code streamingTest} task, whose JVM heap is capped in {@code build.gradle},
+ * so the export only passes when rows are streamed rather than collected.
+ */
+@Tag("streaming")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ExportUsersIntegrationTest extends PostgresSQLTestContainerTest {
+
+    private static final int SEEDED_USERS = 1_000_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportUsers_streamsAllUsersAsNdjson() {
+        // Arrange
+        String baseUrl = "http://localhost:%s/users".formatted(port);
+        UserCreateUpdateDto exporter = new UserCreateUpdateDto()
+                .name("Exporter")
+                .username("exporter")
+                .password("secret12345");
+        assertThat(rest.postForEntity(baseUrl, exporter, Void.class).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        jdbcTemplate.update("""
+                insert into users (id, name, username, password)
+                select g, 'User ' || g, 'user' || g, 'HASHED'
+                from generate_series(10000000, 10000000 + ? - 1) g
+                """, SEEDED_USERS);
+
+        // Act
+        long[] result = rest.withBasicAuth("exporter", "secret12345").execute(baseUrl + "/export", HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON)),
+                response -> {
+                    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                    long lines = 0;
+                    long lastId = 0;
+                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            lines++;
+                            lastId = Long.parseLong(line.replaceAll(".*\"id\":(\\d+).*", "$1"));
+                        }
+                    }
+                    return new long[]{lines, lastId};
+                });
+
+        // Assert
+        assertThat(result).isNotNull();
+        assertThat(result[0]).isEqualTo(SEEDED_USERS + 1);
+        assertThat(result[1]).isEqualTo(10_000_000L + SEEDED_USERS - 1);
+    }
+}
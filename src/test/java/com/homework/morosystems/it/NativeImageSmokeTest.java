@@ -0,0 +1,185 @@
+package com.homework.morosystems.it;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.model.UserPageResponseDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the native image of the application against a PostgreSQL container and calls each of the five user
+ * operations once. Prints the time until the application is healthy and its resident set size after start
+ * and after the calls, and writes them with the size of the binary as JSON to {@code native.report}.
+ * Run with {@code gradle nativeSmokeTest}, which builds the image and passes its path as {@code native.binary}.
+ */
+@Tag("native")
+class NativeImageSmokeTest extends PostgresSQLTestContainerTest {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(30);
+    private static final String PASSWORD = "secret12345";
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private Process application;
+    private String baseUrl;
+    private long startupMillis;
+    private long startupResidentSetMebibytes;
+
+    @BeforeEach
+    void start() throws IOException, InterruptedException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        baseUrl = "http://localhost:" + port;
+
+        long start = System.nanoTime();
+        application = new ProcessBuilder(
+                System.getProperty("native.binary"),
+                "--server.port=" + port,
+                "--spring.datasource.url=" + POSTGRES.getJdbcUrl(),
+                "--spring.datasource.username=" + POSTGRES.getUsername(),
+                "--spring.datasource.password=" + POSTGRES.getPassword())
+                .inheritIO()
+                .start();
+        awaitHealthy();
+        startupMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        startupResidentSetMebibytes = residentSetMebibytes();
+        System.out.printf("Native image healthy after %d ms, RSS %d MiB%n", startupMillis, startupResidentSetMebibytes);
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (application != null) {
+            application.destroy();
+            application.waitFor();
+        }
+    }
+
+    @Test
+    void usersApi_allOperationsSucceed() throws IOException, InterruptedException {
+        HttpResponse<String> created = send(HttpRequest.newBuilder(URI.create(baseUrl + "/users"))
+                .header("Content-Type", "application/json")
+                .POST(body(user("Alice", "alice123"))));
+        assertThat(created.statusCode()).isEqualTo(201);
+        UserGetDto user = objectMapper.readValue(created.body(), UserGetDto.class);
+        String userUrl = baseUrl + "/users/" + user.getId();
+
+        HttpResponse<String> byId = send(HttpRequest.newBuilder(URI.create(userUrl)).GET());
+        assertThat(byId.statusCode()).isEqualTo(200);
+        assertThat(objectMapper.readValue(byId.body(), UserGetDto.class).getUsername()).isEqualTo("alice123");
+
+        HttpResponse<String> page = send(HttpRequest.newBuilder(URI.create(baseUrl + "/users?page=0&size=10")).GET());
+        assertThat(page.statusCode()).isEqualTo(200);
+        assertThat(objectMapper.readValue(page.body(), UserPageResponseDto.class).getContent())
+                .extracting(UserGetDto::getId)
+                .contains(user.getId());
+
+        HttpResponse<String> updated = send(HttpRequest.newBuilder(URI.create(userUrl))
+                .header("Content-Type", "application/json")
+                .header("Authorization", basic("alice123"))
+                .PUT(body(user("Alice Smith", "alice123"))));
+        assertThat(updated.statusCode()).isEqualTo(200);
+        assertThat(objectMapper.readValue(updated.body(), UserGetDto.class).getName()).isEqualTo("Alice Smith");
+
+        HttpResponse<String> deleted = send(HttpRequest.newBuilder(URI.create(userUrl))
+                .header("Authorization", basic("alice123"))
+                .DELETE());
+        assertThat(deleted.statusCode()).isEqualTo(204);
+        assertThat(send(HttpRequest.newBuilder(URI.create(userUrl)).GET()).statusCode()).isEqualTo(404);
+
+        long residentSetMebibytes = residentSetMebibytes();
+        System.out.printf("Native image RSS after the calls %d MiB%n", residentSetMebibytes);
+        writeReport(new Report(startupMillis, startupResidentSetMebibytes, residentSetMebibytes,
+                Files.size(Path.of(System.getProperty("native.binary"))) / 1024 / 1024));
+    }
+
+    private void writeReport(Report report) throws IOException {
+        Path output = Path.of(System.getProperty("native.report", "build/reports/native/smoke-test.json"));
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+        System.out.printf("Native image figures written to %s%n", output.toAbsolutePath());
+    }
+
+    private void awaitHealthy() throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health")).build();
+        while (System.nanoTime() < deadline) {
+            assertThat(application.isAlive()).as("native image running").isTrue();
+            try {
+                if (httpClient.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // not listening yet
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("Native image not healthy within " + STARTUP_TIMEOUT);
+    }
+
+    // VmRSS of /proc, so Linux only
+    private long residentSetMebibytes() throws IOException {
+        return Files.readAllLines(Path.of("/proc", String.valueOf(application.pid()), "status")).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")) / 1024)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.BodyPublisher body(Object value) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(value));
+    }
+
+    private static UserCreateUpdateDto user(String name, String username) {
+        return new UserCreateUpdateDto()
+                .name(name)
+                .username(username)
+                .password(PASSWORD);
+    }
+
+    /**
+     * @param startupMillis                  from starting the binary to the first healthy response
+     * @param startupResidentSetMebibytes    resident set size once healthy
+     * @param afterCallsResidentSetMebibytes resident set size after the five operations
+     * @param binaryMebibytes                size of the native executable
+     */
+    record Report(long startupMillis,
+                  long startupResidentSetMebibytes,
+                  long afterCallsResidentSetMebibytes,
+                  long binaryMebibytes) {
+    }
+
+    private static String basic(String username) {
+        return "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+    }
+}
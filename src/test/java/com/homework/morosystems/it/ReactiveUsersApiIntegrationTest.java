@@ -0,0 +1,106 @@
+package com.homework.morosystems.it;
+
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.model.UserGetDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class ReactiveUsersApiIntegrationTest extends PostgresSQLTestContainerTest {
+
+    private static final String PASSWORD = "secret12345";
+
+    @Autowired
+    private WebTestClient client;
+
+    @DynamicPropertySource
+    static void registerR2dbcProps(DynamicPropertyRegistry reg) {
+        reg.add("spring.r2dbc.url", () -> "r2dbc:postgresql://%s:%d/%s".formatted(
+                POSTGRES.getHost(), POSTGRES.getFirstMappedPort(), POSTGRES.getDatabaseName()));
+        reg.add("spring.r2dbc.username", POSTGRES::getUsername);
+        reg.add("spring.r2dbc.password", POSTGRES::getPassword);
+    }
+
+    @Test
+    void usersApi_createsReadsUpdatesAndDeletesUser() {
+        // Arrange
+        UserCreateUpdateDto request = new UserCreateUpdateDto()
+                .name("Erin")
+                .username("erin123")
+                .password(PASSWORD);
+
+        // Act & Assert
+        UserGetDto created = client.post().uri("/users")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals("ETag", "\"0\"")
+                .expectBody(UserGetDto.class)
+                .returnResult().getResponseBody();
+        String userUri = "/users/" + created.getId();
+
+        client.get().uri(userUri)
+                .header("If-None-Match", "\"0\"")
+                .exchange()
+                .expectStatus().isNotModified();
+
+        UserGetDto updated = client.put().uri(userUri)
+                .headers(headers -> headers.setBasicAuth("erin123", PASSWORD))
+                .header("If-Match", "\"0\"")
+                .bodyValue(request.name("Erina"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1\"")
+                .expectBody(UserGetDto.class)
+                .returnResult().getResponseBody();
+        assertThat(updated.getName()).isEqualTo("Erina");
+
+        client.put().uri(userUri)
+                .headers(headers -> headers.setBasicAuth("erin123", PASSWORD))
+                .header("If-Match", "\"0\"")
+                .bodyValue(request.name("Rin"))
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        client.delete().uri(userUri)
+                .headers(headers -> headers.setBasicAuth("erin123", PASSWORD))
+                .exchange()
+                .expectStatus().isNoContent();
+        client.get().uri(userUri)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void createUser_returns409OnTakenUsername() {
+        // Arrange
+        UserCreateUpdateDto request = new UserCreateUpdateDto()
+                .name("Frank")
+                .username("frank123")
+                .password(PASSWORD);
+        client.post().uri("/users").bodyValue(request).exchange().expectStatus().isCreated();
+
+        // Act & Assert
+        client.post().uri("/users")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody().jsonPath("$.status").exists();
+    }
+
+    @Test
+    void updateUser_returns401WithoutCredentials() {
+        client.put().uri("/users/1")
+                .bodyValue(new UserCreateUpdateDto().name("Nobody").username("nobody1"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+}
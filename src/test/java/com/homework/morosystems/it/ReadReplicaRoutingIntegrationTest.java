@@ -0,0 +1,102 @@
+package com.homework.morosystems.it;
+
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.model.UserPageResponseDto;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two independent databases stand in for the primary and the replica. Nothing replicates between them,
+ * so the data a request sees tells which one served it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.datasource.read-replicas.enabled=true",
+        "app.datasource.read-replicas.max-lag=PT0S",
+        "app.datasource.read-replicas.read-your-writes-window=PT1M"
+})
+class ReadReplicaRoutingIntegrationTest extends PostgresSQLTestContainerTest {
+
+    private static final String PASSWORD = "secret12345";
+
+    @Container
+    private static final PostgreSQLContainer<?> REPLICA =
+            new PostgreSQLContainer<>("postgres:16-alpine")
+                    .withDatabaseName("testdb")
+                    .withUsername("test")
+                    .withPassword("test");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @DynamicPropertySource
+    static void registerReplicaProps(DynamicPropertyRegistry reg) {
+        reg.add("app.datasource.read-replicas.replicas[0].url", REPLICA::getJdbcUrl);
+        reg.add("app.datasource.read-replicas.replicas[0].username", REPLICA::getUsername);
+        reg.add("app.datasource.read-replicas.replicas[0].password", REPLICA::getPassword);
+    }
+
+    @BeforeAll
+    static void setUpReplica() throws Exception {
+        DriverManagerDataSource replica = new DriverManagerDataSource(REPLICA.getJdbcUrl(), REPLICA.getUsername(), REPLICA.getPassword());
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(replica);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.xml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+
+        new JdbcTemplate(replica).update(
+                "insert into users (id, name, username, password, version) values (1, 'Replica', 'replica_only', 'x', 0)");
+    }
+
+    @Test
+    void readOnlyRequests_areServedByReplicaExceptAfterOwnWrite() {
+        // Arrange
+        String baseUrl = "http://localhost:%s/users".formatted(port);
+        UserCreateUpdateDto request = new UserCreateUpdateDto()
+                .name("Dave")
+                .username("dave123")
+                .password(PASSWORD);
+        UserGetDto created = rest.postForEntity(baseUrl, request, UserGetDto.class).getBody();
+
+        // Act & Assert: anonymous read goes to the replica, which never saw the new user
+        assertThat(usernames(rest.getForEntity(baseUrl + "?page=0&size=10", UserPageResponseDto.class)))
+                .containsExactly("replica_only");
+
+        ResponseEntity<UserGetDto> updated = rest.withBasicAuth("dave123", PASSWORD)
+                .exchange(baseUrl + "/" + created.getId(), HttpMethod.PUT, new HttpEntity<>(request.name("David")), UserGetDto.class);
+        assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        // the writer reads from the primary for the read-your-writes window, others still from the replica
+        assertThat(usernames(rest.withBasicAuth("dave123", PASSWORD).getForEntity(baseUrl + "?page=0&size=10", UserPageResponseDto.class)))
+                .containsExactly("dave123");
+        assertThat(usernames(rest.getForEntity(baseUrl + "?page=0&size=10", UserPageResponseDto.class)))
+                .containsExactly("replica_only");
+    }
+
+    private static Iterable<String> usernames(ResponseEntity<UserPageResponseDto> response) {
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody().getContent().stream().map(UserGetDto::getUsername).toList();
+    }
+}
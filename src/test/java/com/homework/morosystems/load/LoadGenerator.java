@@ -0,0 +1,187 @@
+package com.homework.morosystems.load;
+
+import com.homework.morosystems.load.LoadSettings.Operation;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a weighted mix of operations in a closed or an open loop and records two latencies per request:
+ * <ul>
+ *     <li>service time - from sending the request to its response</li>
+ *     <li>response time - from the moment the request was due to its response. A request that is due while
+ *     the generator is still waiting for an earlier one is not sent later and measured from then, which would hide
+ *     the stall (coordinated omission); the time it waited counts into its response time.</li>
+ * </ul>
+ * A closed loop with no client rate has no schedule to measure against. Its response times are corrected afterwards
+ * with {@link Histogram#copyCorrectedForCoordinatedOmission}, taking the average time between two requests of
+ * a client as the expected interval.
+ */
+final class LoadGenerator {
+
+    interface Client {
+
+        /**
+         * @return the HTTP status of the response
+         */
+        int call(Operation operation) throws Exception;
+    }
+
+    private final LoadSettings settings;
+    private final Client client;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    LoadGenerator(LoadSettings settings, Client client) {
+        this.settings = settings;
+        this.client = client;
+        this.operations = settings.mix().keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += settings.mix().get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    Result run(Duration duration) {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : operations) {
+            stats.put(operation, new OperationStats());
+        }
+
+        long start = System.nanoTime();
+        if (settings.mode() == LoadSettings.Mode.OPEN) {
+            runOpen(stats, start, start + duration.toNanos());
+        } else {
+            runClosed(stats, start, start + duration.toNanos());
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        if (settings.mode() == LoadSettings.Mode.CLOSED && settings.clientRate() <= 0) {
+            long requests = stats.values().stream().mapToLong(s -> s.serviceTime.getTotalCount()).sum();
+            long expectedIntervalMicros = requests == 0 ? 0 : elapsed.toNanos() / 1000 * settings.clients() / requests;
+            stats.values().forEach(s -> s.correctFor(expectedIntervalMicros));
+        }
+        return new Result(stats, elapsed);
+    }
+
+    private void runClosed(Map<Operation, OperationStats> stats, long start, long end) {
+        long interval = settings.clientRate() > 0 ? (long) (1e9 / settings.clientRate()) : 0;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < settings.clients(); i++) {
+                // spreads the first requests of paced clients over one interval instead of sending them all at once
+                long first = start + (interval > 0 ? ThreadLocalRandom.current().nextLong(interval) : 0);
+                clients.submit(() -> {
+                    for (long next = first; ; next += interval) {
+                        long due = interval > 0 ? next : System.nanoTime();
+                        if (due >= end) {
+                            return;
+                        }
+                        sleepUntil(due);
+                        call(stats, due);
+                    }
+                });
+            }
+        }
+    }
+
+    private void runOpen(Map<Operation, OperationStats> stats, long start, long end) {
+        Semaphore inFlight = new Semaphore(settings.maxInFlight());
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long due = start + (long) (i * 1e9 / settings.rate());
+                if (due >= end) {
+                    return;
+                }
+                sleepUntil(due);
+                requests.submit(() -> {
+                    inFlight.acquireUninterruptibly();
+                    try {
+                        call(stats, due);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private void call(Map<Operation, OperationStats> stats, long due) {
+        Operation operation = nextOperation();
+        long sent = System.nanoTime();
+        int status;
+        try {
+            status = client.call(operation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            status = 0;
+        }
+        long received = System.nanoTime();
+        stats.get(operation).record(status, received - due, received - sent);
+    }
+
+    private Operation nextOperation() {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Weights must be positive");
+    }
+
+    private static void sleepUntil(long deadline) {
+        for (long wait = deadline - System.nanoTime(); wait > 0; wait = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    record Result(Map<Operation, OperationStats> stats, Duration elapsed) {
+    }
+
+    /**
+     * Latencies in microseconds and response counts by HTTP status, 0 for requests that got no response.
+     */
+    static final class OperationStats {
+
+        private Histogram responseTime = new ConcurrentHistogram(3);
+        private final Histogram serviceTime = new ConcurrentHistogram(3);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        private void record(int status, long responseNanos, long serviceNanos) {
+            responseTime.recordValue(TimeUnit.NANOSECONDS.toMicros(responseNanos));
+            serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(serviceNanos));
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+
+        private void correctFor(long expectedIntervalMicros) {
+            responseTime = serviceTime.copyCorrectedForCoordinatedOmission(expectedIntervalMicros);
+        }
+
+        Histogram responseTime() {
+            return responseTime;
+        }
+
+        Histogram serviceTime() {
+            return serviceTime;
+        }
+
+        Map<Integer, LongAdder> statuses() {
+            return statuses;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.homework.morosystems.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.homework.morosystems.load.LoadGenerator.OperationStats;
+import com.homework.morosystems.load.LoadSettings.Operation;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Results of one {@link UsersApiLoadTest} run, written as JSON to {@link LoadSettings#output()}.
+ * Latencies are in milliseconds. {@code responseTimeHistogram} is the HdrHistogram of the response times in
+ * microseconds, compressed and Base64 encoded, so that runs can be merged or plotted later
+ * ({@link Histogram#decodeFromCompressedByteBuffer}).
+ *
+ * @param sloMet    whether every operation met {@link LoadSettings#sloP99()} and {@link LoadSettings#sloErrorRate()}
+ * @param resources peaks of the server's resources during the run, see {@link ResourceSampler}
+ */
+record LoadReport(LoadSettings settings,
+                  double elapsedSeconds,
+                  double throughput,
+                  boolean sloMet,
+                  List<OperationReport> operations,
+                  Resources resources) {
+
+    record OperationReport(String operation,
+                           long requests,
+                           long errors,
+                           double throughput,
+                           double errorRate,
+                           Latencies responseTime,
+                           Latencies serviceTime,
+                           Map<Integer, Long> statuses,
+                           boolean sloMet,
+                           String responseTimeHistogram) {
+    }
+
+    record Latencies(double p50, double p95, double p99, double p999, double max, double mean) {
+
+        static Latencies of(Histogram histogram) {
+            return new Latencies(percentile(histogram, 50), percentile(histogram, 95), percentile(histogram, 99),
+                    percentile(histogram, 99.9), histogram.getMaxValue() / 1000.0, histogram.getMean() / 1000.0);
+        }
+
+        private static double percentile(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    record Resources(double heapUsedMegabytes,
+                     long liveThreads,
+                     long httpConnections,
+                     long dbConnectionsActive,
+                     long dbConnectionsPending) {
+    }
+
+    static LoadReport of(LoadSettings settings, LoadGenerator.Result result, Resources resources) {
+        double seconds = result.elapsed().toNanos() / 1e9;
+        List<OperationReport> operations = new ArrayList<>();
+        for (Map.Entry<Operation, OperationStats> entry : result.stats().entrySet()) {
+            Operation operation = entry.getKey();
+            OperationStats stats = entry.getValue();
+
+            Map<Integer, Long> statuses = new TreeMap<>();
+            stats.statuses().forEach((status, count) -> statuses.put(status, count.sum()));
+            long requests = statuses.values().stream().mapToLong(Long::longValue).sum();
+            long errors = requests - statuses.getOrDefault(operation.expectedStatus(), 0L);
+            double errorRate = requests == 0 ? 0 : (double) errors / requests;
+            Latencies responseTime = Latencies.of(stats.responseTime());
+
+            operations.add(new OperationReport(operation.key(), requests, errors, requests / seconds, errorRate,
+                    responseTime, Latencies.of(stats.serviceTime()), statuses,
+                    responseTime.p99() <= settings.sloP99().toNanos() / 1e6 && errorRate <= settings.sloErrorRate(),
+                    encode(stats.responseTime())));
+        }
+
+        long requests = operations.stream().mapToLong(OperationReport::requests).sum();
+        return new LoadReport(settings, seconds, requests / seconds,
+                operations.stream().allMatch(OperationReport::sloMet), operations, resources);
+    }
+
+    void write(ObjectMapper objectMapper) throws IOException {
+        Files.createDirectories(settings.output().toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(settings.output().toFile(), this);
+    }
+
+    String summary() {
+        StringBuilder summary = new StringBuilder("%s loop, %.0f req/s over %.1f s, SLO p99 <= %d ms and errors <= %.2f%%: %s%n"
+                .formatted(settings.mode().name().toLowerCase(Locale.ROOT), throughput, elapsedSeconds, settings.sloP99().toMillis(),
+                        settings.sloErrorRate() * 100, sloMet ? "met" : "MISSED"));
+        summary.append("%-8s %9s %8s %9s %9s %9s %9s %9s %9s  %s%n"
+                .formatted("", "req/s", "errors", "p50", "p95", "p99", "p99.9", "max", "p99 svc", "SLO"));
+        for (OperationReport operation : operations) {
+            Latencies latencies = operation.responseTime();
+            summary.append("%-8s %9.1f %8d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f  %s%n".formatted(
+                    operation.operation(), operation.throughput(), operation.errors(), latencies.p50(), latencies.p95(),
+                    latencies.p99(), latencies.p999(), latencies.max(), operation.serviceTime().p99(),
+                    operation.sloMet() ? "met" : "MISSED"));
+        }
+        summary.append("peaks: heap %.0f MB, %d live threads, %d HTTP connections, %d DB connections active, %d pending%n"
+                .formatted(resources.heapUsedMegabytes(), resources.liveThreads(), resources.httpConnections(),
+                        resources.dbConnectionsActive(), resources.dbConnectionsPending()));
+        return summary.toString();
+    }
+
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+}
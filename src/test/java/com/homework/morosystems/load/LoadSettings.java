@@ -0,0 +1,99 @@
+package com.homework.morosystems.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Settings of {@link UsersApiLoadTest}, read from {@code load.*} system properties.
+ * {@code gradle loadTest} passes project properties of the same name, e.g. {@code -Pload.mode=open -Pload.rate=2000}.
+ *
+ * @param users        users seeded before the run, read by {@code get} and {@code list}
+ * @param activeUsers  seeded users that {@code update} authenticates as, small enough for their credentials to stay cached
+ * @param mode         {@code closed} - a fixed number of clients, each waiting for its response before the next request;
+ *                     {@code open} - requests start at a fixed rate regardless of how many are still running
+ * @param clients      closed loop: number of clients
+ * @param clientRate   closed loop: requests per second of each client, 0 to send the next request right after the response
+ * @param rate         open loop: requests per second
+ * @param maxInFlight  open loop: requests running at once, further requests wait and the wait counts into their latency
+ * @param warmup       run before the measurement, its results are discarded
+ * @param duration     measured run
+ * @param mix          relative weight of each operation, e.g. {@code get:60,list:25,create:5,update:8,delete:2}
+ * @param sloP99       99th percentile response time each operation must stay within
+ * @param sloErrorRate share of failed requests each operation must stay within
+ * @param output       JSON file the results are written to, by default named after the test class and the mode
+ */
+record LoadSettings(int users,
+                    int activeUsers,
+                    Mode mode,
+                    int clients,
+                    double clientRate,
+                    double rate,
+                    int maxInFlight,
+                    Duration warmup,
+                    Duration duration,
+                    Map<Operation, Integer> mix,
+                    Duration sloP99,
+                    double sloErrorRate,
+                    Path output) {
+
+    enum Mode {
+        CLOSED, OPEN
+    }
+
+    enum Operation {
+        GET(200), LIST(200), CREATE(201), UPDATE(200), DELETE(204);
+
+        private final int expectedStatus;
+
+        Operation(int expectedStatus) {
+            this.expectedStatus = expectedStatus;
+        }
+
+        int expectedStatus() {
+            return expectedStatus;
+        }
+
+        String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    static LoadSettings fromSystemProperties(String name) {
+        Mode mode = Mode.valueOf(property("mode", "closed").toUpperCase(Locale.ROOT));
+        return new LoadSettings(
+                Integer.parseInt(property("users", "100000")),
+                Integer.parseInt(property("active-users", "1000")),
+                mode,
+                Integer.parseInt(property("clients", "64")),
+                Double.parseDouble(property("client-rate", "0")),
+                Double.parseDouble(property("rate", "500")),
+                Integer.parseInt(property("max-in-flight", "1000")),
+                Duration.parse(property("warmup", "PT10S")),
+                Duration.parse(property("duration", "PT30S")),
+                parseMix(property("mix", "get:60,list:25,create:5,update:8,delete:2")),
+                Duration.parse(property("slo.p99", "PT0.5S")),
+                Double.parseDouble(property("slo.error-rate", "0.001")),
+                Path.of(property("output", "build/load-results/" + name + "-" + mode.name().toLowerCase(Locale.ROOT) + ".json")));
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("load." + name, defaultValue);
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            Operation operation = Arrays.stream(Operation.values())
+                    .filter(o -> o.key().equals(parts[0]))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown operation " + parts[0] + " in load.mix"));
+            weights.put(operation, Integer.parseInt(parts[1]));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,17 @@
+package com.homework.morosystems.load;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+@ActiveProfiles("reactive")
+class ReactiveUsersApiLoadTest extends UsersApiLoadTest {
+
+    @DynamicPropertySource
+    static void registerR2dbcProps(DynamicPropertyRegistry reg) {
+        reg.add("spring.r2dbc.url", () -> "r2dbc:postgresql://%s:%d/%s".formatted(
+                POSTGRES.getHost(), POSTGRES.getFirstMappedPort(), POSTGRES.getDatabaseName()));
+        reg.add("spring.r2dbc.username", POSTGRES::getUsername);
+        reg.add("spring.r2dbc.password", POSTGRES::getPassword);
+    }
+}
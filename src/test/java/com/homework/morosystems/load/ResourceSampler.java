@@ -0,0 +1,65 @@
+package com.homework.morosystems.load;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the application's gauges during a load run and keeps the peaks. The load generator runs in the same JVM,
+ * so heap and thread counts include its share; connection counts are the server's only. Connections are read from
+ * the Tomcat and Hikari gauges of the servlet stack and from the Reactor Netty and R2DBC pool gauges of the reactive
+ * one, whichever are registered.
+ */
+final class ResourceSampler implements AutoCloseable {
+
+    private static final long INTERVAL_MILLIS = 100;
+
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "load-resource-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private double heapUsed;
+    private double liveThreads;
+    private double httpConnections;
+    private double dbConnectionsActive;
+    private double dbConnectionsPending;
+
+    ResourceSampler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        sampler.scheduleAtFixedRate(this::sample, 0, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void sample() {
+        heapUsed = Math.max(heapUsed, sum("jvm.memory.used", "area", "heap"));
+        liveThreads = Math.max(liveThreads, sum("jvm.threads.live"));
+        httpConnections = Math.max(httpConnections,
+                sum("tomcat.connections.current") + sum("reactor.netty.http.server.connections.total"));
+        dbConnectionsActive = Math.max(dbConnectionsActive,
+                sum("hikaricp.connections.active") + sum("r2dbc.pool.acquired"));
+        dbConnectionsPending = Math.max(dbConnectionsPending,
+                sum("hikaricp.connections.pending") + sum("r2dbc.pool.pending"));
+    }
+
+    private double sum(String name, String... tags) {
+        return meterRegistry.find(name).tags(tags).gauges().stream().mapToDouble(Gauge::value).sum();
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+
+    /**
+     * @return the peaks since the sampler was created
+     */
+    synchronized LoadReport.Resources peaks() {
+        return new LoadReport.Resources(heapUsed / (1024 * 1024), (long) liveThreads, (long) httpConnections,
+                (long) dbConnectionsActive, (long) dbConnectionsPending);
+    }
+}
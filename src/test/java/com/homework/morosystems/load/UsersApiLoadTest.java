@@ -0,0 +1,202 @@
+package com.homework.morosystems.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.homework.morosystems.it.PostgresSQLTestContainerTest;
+import com.homework.morosystems.load.LoadSettings.Operation;
+import com.homework.morosystems.service.UsernameFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load against all five user operations of the API, on the full application and a PostgreSQL container.
+ * Prints throughput and response time percentiles per operation, writes them to a JSON file and fails when an
+ * operation misses its SLO. All settings are {@code load.*} properties, see {@link LoadSettings}; run with
+ * {@code gradle loadTest --tests '*UsersApiLoadTest' -Pload.mode=open -Pload.rate=1000}.
+ * <p>
+ * Subclasses run it on the servlet stack with platform and with virtual request threads and on the WebFlux/R2DBC
+ * stack of the {@code reactive} profile, each reporting the peak heap, threads and HTTP and database connections
+ * next to the latencies. To compare them side by side at high fan-in, run
+ * {@code gradle loadTest -Pload.clients=10000 -Pload.client-rate=0.5 loadCompare}; the open file limit
+ * ({@code ulimit -n}) must allow a socket on both ends of every connection; the {@code load} profile raises
+ * the connection limits of Tomcat for them.
+ * <p>
+ * {@code update} authenticates as one of the {@code load.active-users}, {@code delete} removes users seeded
+ * for it or created by the run, so that every request is expected to succeed.
+ * The login throttle is off, all requests come from a single client address.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("load")
+@TestPropertySource(properties = "app.security.login-throttle.enabled=false")
+abstract class UsersApiLoadTest extends PostgresSQLTestContainerTest {
+
+    private static final long FIRST_ID = 1_000_000;
+    private static final long FIRST_DELETABLE_ID = 10_000_000;
+    private static final int PAGE_SIZE = 20;
+    private static final String PASSWORD = "secret12345";
+
+    private final LoadSettings settings = LoadSettings.fromSystemProperties(getClass().getSimpleName());
+    private final Queue<DeletableUser> deletableUsers = new ConcurrentLinkedQueue<>();
+    private final AtomicLong createdUsers = new AtomicLong();
+
+    @LocalServerPort
+    private int port;
+
+    // not a bean of the application, the reactive profile has no JDBC data source
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+            new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword()));
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectProvider<UsernameFilter> usernameFilter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private HttpClient httpClient;
+
+    @BeforeEach
+    void seedUsers() {
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+        int deletable = settings.users() / 10;
+        jdbcTemplate.update("""
+                insert into users (id, name, username, password)
+                select g, 'User ' || g, 'user' || g, ?
+                from generate_series(?, ? + ? - 1) g
+                on conflict do nothing
+                """, passwordHash, FIRST_ID, FIRST_ID, settings.users());
+        jdbcTemplate.update("""
+                insert into users (id, name, username, password)
+                select g, 'Deletable ' || g, 'user' || g, ?
+                from generate_series(?, ? + ? - 1) g
+                on conflict do nothing
+                """, passwordHash, FIRST_DELETABLE_ID, FIRST_DELETABLE_ID, deletable);
+        for (long id = FIRST_DELETABLE_ID; id < FIRST_DELETABLE_ID + deletable; id++) {
+            deletableUsers.add(new DeletableUser(id, "user" + id));
+        }
+        // the users were inserted behind the application's back
+        usernameFilter.ifAvailable(UsernameFilter::rebuild);
+
+        httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @Test
+    void usersApi() throws IOException {
+        LoadGenerator loadGenerator = new LoadGenerator(settings, this::call);
+        loadGenerator.run(settings.warmup());
+        LoadReport report;
+        try (ResourceSampler sampler = new ResourceSampler(meterRegistry)) {
+            report = LoadReport.of(settings, loadGenerator.run(settings.duration()), sampler.peaks());
+        }
+
+        report.write(objectMapper);
+        System.out.print(report.summary());
+        System.out.println("Results written to " + settings.output().toAbsolutePath());
+        assertThat(report.sloMet()).as("SLO met by all operations").isTrue();
+    }
+
+    private int call(Operation operation) throws IOException, InterruptedException {
+        return switch (operation) {
+            case GET -> send(request("/users/" + randomUser()).GET());
+            case LIST -> send(request("/users?page=%d&size=%d".formatted(
+                    ThreadLocalRandom.current().nextInt(settings.users() / PAGE_SIZE), PAGE_SIZE)).GET());
+            case CREATE -> create();
+            case UPDATE -> update();
+            case DELETE -> delete();
+        };
+    }
+
+    private int create() throws IOException, InterruptedException {
+        String username = "load" + createdUsers.incrementAndGet();
+        HttpResponse<String> response = httpClient.send(request("/users")
+                        .header("Content-Type", "application/json")
+                        .POST(body(username, PASSWORD))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 201) {
+            deletableUsers.add(new DeletableUser(objectMapper.readTree(response.body()).get("id").asLong(), username));
+        }
+        return response.statusCode();
+    }
+
+    private int update() throws IOException, InterruptedException {
+        long id = FIRST_ID + ThreadLocalRandom.current().nextInt(Math.min(settings.activeUsers(), settings.users()));
+        String username = "user" + id;
+        return send(request("/users/" + id)
+                .header("Authorization", basicAuth(username))
+                .header("Content-Type", "application/json")
+                .PUT(body(username, null)));
+    }
+
+    private int delete() throws IOException, InterruptedException {
+        DeletableUser user = deletableUsers.poll();
+        if (user == null) {
+            throw new IllegalStateException("No user left to delete, seed more users or lower the delete weight");
+        }
+        return send(request("/users/" + user.id())
+                .header("Authorization", basicAuth(user.username()))
+                .DELETE());
+    }
+
+    private long randomUser() {
+        return FIRST_ID + ThreadLocalRandom.current().nextInt(settings.users());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest.BodyPublisher body(String username, String password) throws IOException {
+        var user = objectMapper.createObjectNode()
+                .put("name", "Load " + ThreadLocalRandom.current().nextInt())
+                .put("username", username);
+        if (password != null) {
+            user.put("password", password);
+        }
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(user));
+    }
+
+    private static String basicAuth(String username) {
+        return "Basic " + Base64.getEncoder().encodeToString((username + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record DeletableUser(long id, String username) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.homework.morosystems.load;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadsUsersApiLoadTest extends UsersApiLoadTest {
+}
@@ -3,6 +3,7 @@ package com.homework.morosystems.mapper;
 import com.homework.morosystems.model.UserCreateUpdateDto;
 import com.homework.morosystems.model.UserGetDto;
 import com.homework.morosystems.repository.UserEntity;
+import com.homework.morosystems.repository.UserView;
 import org.junit.jupiter.api.Test;
 import org.mapstruct.factory.Mappers;
 
@@ -24,6 +25,16 @@ class UserMapperTest {
         assertThat(dto.getName()).isEqualTo("Alice");
     }
 
+    @Test
+    void toDto_shouldMapViewToDto() {
+        UserGetDto dto = mapper.toDto(new UserView(1L, "Alice", "alice", 2L));
+
+        assertThat(dto.getId()).isEqualTo(1L);
+        assertThat(dto.getName()).isEqualTo("Alice");
+        assertThat(dto.getUsername()).isEqualTo("alice");
+        assertThat(dto.getVersion()).isEqualTo(2L);
+    }
+
     @Test
     void toEntity_shouldMapDtoToEntity() {
         UserCreateUpdateDto dto = new UserCreateUpdateDto();
@@ -3,6 +3,10 @@ package com.homework.morosystems.repository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.util.Optional;
 
@@ -26,4 +30,40 @@ class UserRepositoryTest {
         assertThat(found.get().getName()).isEqualTo("Test User");
     }
 
+    @Test
+    void search_matchesUsernameOrNameIgnoringCase() {
+        UserEntity alice = userRepository.save(user("Alice Smith", "alice"));
+        UserEntity bob = userRepository.save(user("Bob", "bob_smithers"));
+        userRepository.save(user("Carol", "carol"));
+
+        assertThat(userRepository.search("%SMITH%", 0, Limit.of(10)))
+                .extracting(UserView::id)
+                .containsExactly(alice.getId(), bob.getId());
+        assertThat(userRepository.search("%SMITH%", alice.getId(), Limit.of(10)))
+                .extracting(UserView::id)
+                .containsExactly(bob.getId());
+        assertThat(userRepository.search("%b!_s%", 0, Limit.of(10)))
+                .extracting(UserView::id)
+                .containsExactly(bob.getId());
+    }
+
+    @Test
+    void findAllViews_selectsApiColumnsOnly() {
+        UserEntity alice = userRepository.save(user("Alice", "alice"));
+        userRepository.save(user("Bob", "bob"));
+
+        Page<UserView> page = userRepository.findAllViews(PageRequest.of(0, 1, Sort.by("id")));
+
+        assertThat(page.getContent()).containsExactly(new UserView(alice.getId(), "Alice", "alice", 0L));
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    private static UserEntity user(String name, String username) {
+        UserEntity user = new UserEntity();
+        user.setName(name);
+        user.setUsername(username);
+        user.setPassword("HASHED");
+        return user;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.homework.morosystems.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.homework.morosystems.mapper.UserMapperImpl;
+import com.homework.morosystems.model.UserPageResponseDto;
+import com.homework.morosystems.repository.UserView;
+import com.homework.morosystems.service.UserViewPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserPageHttpMessageConverterTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final UserPageHttpMessageConverter converter = new UserPageHttpMessageConverter(objectMapper);
+
+    @Test
+    void write_matchesJacksonOutputOfTheDto() throws IOException {
+        UserViewPage page = page(List.of(
+                new UserView(1L, "Alice", "alice123", 0L),
+                new UserView(2L, "Bob \"the\" Builder", "bob", 3L)));
+        page.currentPage(0)
+                .pageSize(2)
+                .totalElements(5L)
+                .totalPages(3)
+                .nextCursor("Mg");
+
+        assertWrittenLikeJackson(page);
+    }
+
+    @Test
+    void write_writesAbsentFieldsAsNull() throws IOException {
+        UserViewPage page = page(List.of());
+        page.pageSize(10);
+
+        assertWrittenLikeJackson(page);
+    }
+
+    @Test
+    void canWrite_onlyUserViewPagesAsJson() {
+        assertThat(converter.canWrite(UserViewPage.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canWrite(UserPageResponseDto.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canRead(UserViewPage.class, MediaType.APPLICATION_JSON)).isFalse();
+    }
+
+    private void assertWrittenLikeJackson(UserViewPage page) throws IOException {
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        converter.write(page, written);
+
+        String expected = objectMapper.writerFor(UserPageResponseDto.class).writeValueAsString(page);
+        assertThat(objectMapper.readTree(written.toByteArray())).isEqualTo(objectMapper.readTree(expected));
+    }
+
+    private static UserViewPage page(List<UserView> users) {
+        return new UserViewPage(users, new UserMapperImpl()::toDto);
+    }
+}
@@ -0,0 +1,50 @@
+package com.homework.morosystems.rest.handler;
+
+import com.homework.morosystems.exception.ApplicationException;
+import com.homework.morosystems.mapper.ErrorMapperImpl;
+import com.homework.morosystems.model.ErrorResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ControllerErrorHandlerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ControllerErrorHandler controllerErrorHandler = 
+            new ControllerErrorHandler(new ErrorMapperImpl(), meterRegistry, 1, Duration.ofHours(1));
+
+    @Test
+    void handlers_countOutcomesByStatus() {
+        ResponseEntity<ErrorResponseDto> notFound =
+                controllerErrorHandler.handleGenericException(new ApplicationException("User with id 1 not found", HttpStatus.NOT_FOUND));
+        controllerErrorHandler.handleGenericException(new ApplicationException("User with id 2 not found", HttpStatus.NOT_FOUND));
+        controllerErrorHandler.handleRuntimeException(new IllegalStateException("boom"));
+
+        assertThat(notFound.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(meterRegistry.get("app.errors").tags("status", "404", "exception", "ApplicationException").counter().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("app.errors").tags("status", "500", "exception", "IllegalStateException").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void handleGenericException_limitsClientErrorLogLines() {
+        for (int i = 0; i < 3; i++) {
+            controllerErrorHandler.handleGenericException(new ApplicationException("Username already exists", HttpStatus.CONFLICT));
+        }
+
+        assertThat(meterRegistry.get("app.errors").tags("status", "409").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("app.errors.log.suppressed").tags("status", "409").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void applicationException_capturesStackTraceOnlyForServerErrors() {
+        assertThat(new ApplicationException("User with id 1 not found", HttpStatus.NOT_FOUND).getStackTrace()).isEmpty();
+        assertThat(new ApplicationException("Server is busy", HttpStatus.SERVICE_UNAVAILABLE).getStackTrace()).isNotEmpty();
+    }
+}
@@ -0,0 +1,60 @@
+package com.homework.morosystems.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthenticationCacheTest {
+
+    private static final String TEST_USERNAME = "alice123";
+    private static final String TEST_PASSWORD = "secret12345";
+
+    private final AuthenticationCache authenticationCache = new AuthenticationCache(100, Duration.ofMinutes(1));
+
+    @Test
+    void get_returnsUserForSamePassword() {
+        authenticationCache.put(mockUser(), TEST_PASSWORD, authenticationCache.stamp());
+
+        assertThat(authenticationCache.get(TEST_USERNAME, TEST_PASSWORD))
+                .get()
+                .extracting(UserDetails::getUsername, UserDetails::getPassword)
+                .containsExactly(TEST_USERNAME, "");
+    }
+
+    @Test
+    void get_returnsEmptyForDifferentPassword() {
+        authenticationCache.put(mockUser(), TEST_PASSWORD, authenticationCache.stamp());
+
+        assertThat(authenticationCache.get(TEST_USERNAME, "wrongPassword")).isEmpty();
+    }
+
+    @Test
+    void invalidate_evictsUser() {
+        authenticationCache.put(mockUser(), TEST_PASSWORD, authenticationCache.stamp());
+
+        authenticationCache.invalidate(TEST_USERNAME);
+
+        assertThat(authenticationCache.get(TEST_USERNAME, TEST_PASSWORD)).isEmpty();
+    }
+
+    @Test
+    void put_dropsEntryWhenInvalidatedDuringVerification() {
+        long stamp = authenticationCache.stamp();
+        authenticationCache.invalidate(TEST_USERNAME);
+
+        authenticationCache.put(mockUser(), TEST_PASSWORD, stamp);
+
+        assertThat(authenticationCache.get(TEST_USERNAME, TEST_PASSWORD)).isEmpty();
+    }
+
+    private UserDetails mockUser() {
+        return User.withUsername(TEST_USERNAME)
+                .password("HASHED")
+                .roles("USER")
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.homework.morosystems.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    private static final int ENTRIES = 100_000;
+
+    @Test
+    void filter_hasNoFalseNegativesAndConfiguredFalsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(ENTRIES, 0.01);
+        IntStream.range(0, ENTRIES).forEach(i -> filter.add("user" + i));
+
+        assertThat(IntStream.range(0, ENTRIES).allMatch(i -> filter.mightContain("user" + i))).isTrue();
+        long falsePositives = IntStream.range(0, ENTRIES).filter(i -> filter.mightContain("absent" + i)).count();
+        assertThat((double) falsePositives / ENTRIES).isLessThan(0.015);
+        assertThat(filter.hashes()).isEqualTo(7);
+        // 9.6 bits per entry
+        assertThat(filter.bitSize() / 8).isBetween(119_000L, 121_000L);
+    }
+}
@@ -0,0 +1,67 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.configuration.LoginThrottleProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginThrottleTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoginThrottle loginThrottle = new LoginThrottle(new LoginThrottleProperties(true, 100, Duration.ofMinutes(30),
+            new LoginThrottleProperties.Bucket(3, 1),
+            new LoginThrottleProperties.Bucket(2, 1),
+            new LoginThrottleProperties.Lockout(2, Duration.ofSeconds(1), Duration.ofSeconds(3))),
+            meterRegistry, now::get);
+
+    @Test
+    void tryAttempt_limitsClientAndUsername() {
+        assertThat(loginThrottle.tryAttempt("10.0.0.1", "alice")).isZero();
+        assertThat(loginThrottle.tryAttempt("10.0.0.1", "alice")).isZero();
+        assertThat(loginThrottle.tryAttempt("10.0.0.1", "alice")).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        assertThat(loginThrottle.tryAttempt("10.0.0.1", "bob")).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        assertThat(loginThrottle.tryAttempt("10.0.0.2", "bob")).isZero();
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(loginThrottle.tryAttempt("10.0.0.1", "alice")).isZero();
+
+        assertThat(meterRegistry.get("app.auth.throttled").tag("reason", "username").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("app.auth.throttled").tag("reason", "client").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void tryAttempt_locksClientOutOfUsernameProgressivelyAfterFailures() {
+        loginThrottle.recordFailure("10.0.0.1", "alice");
+        assertThat(loginThrottle.tryAttempt("10.0.0.1", "alice")).isZero();
+
+        loginThrottle.recordFailure("10.0.0.1", "alice");
+        assertThat(loginThrottle.tryAttempt("10.0.0.1", "alice")).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        loginThrottle.recordFailure("10.0.0.1", "alice");
+        assertThat(loginThrottle.tryAttempt("10.0.0.1", "alice")).isEqualTo(TimeUnit.SECONDS.toNanos(2));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        loginThrottle.recordFailure("10.0.0.1", "alice");
+        assertThat(loginThrottle.tryAttempt("10.0.0.1", "alice")).isEqualTo(TimeUnit.SECONDS.toNanos(3));
+        assertThat(meterRegistry.get("app.auth.throttled").tag("reason", "locked").counter().count()).isEqualTo(3);
+
+        loginThrottle.recordSuccess("10.0.0.1", "alice");
+        assertThat(loginThrottle.tryAttempt("10.0.0.1", "alice")).isZero();
+    }
+
+    @Test
+    void tryAttempt_keepsOtherClientsAllowedWhileOneIsLockedOut() {
+        loginThrottle.recordFailure("10.0.0.1", "alice");
+        loginThrottle.recordFailure("10.0.0.1", "alice");
+
+        assertThat(loginThrottle.tryAttempt("10.0.0.1", "alice")).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        assertThat(loginThrottle.tryAttempt("10.0.0.2", "alice")).isZero();
+    }
+}
@@ -0,0 +1,88 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.exception.ApplicationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingExecutorTest {
+
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PasswordHashingExecutor passwordHashingExecutor = new PasswordHashingExecutor(passwordEncoder, meterRegistry, 1, 1);
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingExecutor.destroy();
+    }
+
+    @Test
+    void encodeAll_keepsOrder() {
+        when(passwordEncoder.encode(any())).thenAnswer(i -> "HASHED-" + i.getArgument(0));
+
+        assertThat(passwordHashingExecutor.encodeAll(List.of("a", "b", "c")))
+                .containsExactly("HASHED-a", "HASHED-b", "HASHED-c");
+    }
+
+    @Test
+    void encode_rejectsWith503WhenQueueIsFull() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(passwordEncoder.encode(any())).thenAnswer(i -> {
+            release.await();
+            return "HASHED";
+        });
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordHashingExecutor.encode("running"));
+        await().until(() -> meterRegistry.get("executor.active").tag("name", "passwordHashing").gauge().value() == 1);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHashingExecutor.encode("queued"));
+        await().until(() -> meterRegistry.get("executor.queued").tag("name", "passwordHashing").gauge().value() == 1);
+
+        assertThatThrownBy(() -> passwordHashingExecutor.encode("rejected"))
+                .isInstanceOf(ApplicationException.class)
+                .extracting("httpStatus")
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(meterRegistry.get("app.password.hashing.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.join()).isEqualTo("HASHED");
+        assertThat(queued.join()).isEqualTo("HASHED");
+    }
+
+    @Test
+    void encodeAll_leavesAThreadForSingleHashes() {
+        PasswordHashingExecutor twoThreads = new PasswordHashingExecutor(passwordEncoder, new SimpleMeterRegistry(), 2, 64);
+        CountDownLatch release = new CountDownLatch(1);
+        when(passwordEncoder.encode(any())).thenAnswer(i -> {
+            if (i.getArgument(0).toString().startsWith("batch")) {
+                release.await();
+            }
+            return "HASHED-" + i.getArgument(0);
+        });
+
+        try {
+            CompletableFuture<List<String>> batch =
+                    CompletableFuture.supplyAsync(() -> twoThreads.encodeAll(List.of("batch-a", "batch-b", "batch-c")));
+
+            assertThat(twoThreads.encode("single")).isEqualTo("HASHED-single");
+
+            release.countDown();
+            assertThat(batch.join()).containsExactly("HASHED-batch-a", "HASHED-batch-b", "HASHED-batch-c");
+        } finally {
+            release.countDown();
+            twoThreads.destroy();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.configuration.PasswordEncoderFactory;
+import com.homework.morosystems.configuration.PasswordEncoderProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class PasswordRehashServiceTest {
+
+    private static final String PASSWORD = "secret12345";
+
+    private final PasswordEncoder passwordEncoder = PasswordEncoderFactory.create(new PasswordEncoderProperties(
+            PasswordEncoderFactory.BCRYPT,
+            new PasswordEncoderProperties.Bcrypt(5),
+            new PasswordEncoderProperties.Argon2(16, 32, 1, 16384, 2),
+            new PasswordEncoderProperties.Pbkdf2(16, 1000)));
+    private final PasswordHashingExecutor passwordHashingExecutor =
+            new PasswordHashingExecutor(passwordEncoder, new SimpleMeterRegistry(), 1, 1);
+    private final UserDetailsPasswordService userDetailsPasswordService = mock(UserDetailsPasswordService.class);
+    private final PasswordRehashService passwordRehashService =
+            new PasswordRehashService(passwordEncoder, passwordHashingExecutor, userDetailsPasswordService);
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingExecutor.destroy();
+    }
+
+    @Test
+    void rehashIfOutdated_upgradesLegacyHash() {
+        String legacyHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        assertThat(passwordEncoder.matches(PASSWORD, legacyHash)).isTrue();
+
+        passwordRehashService.rehashIfOutdated(user(legacyHash), PASSWORD);
+
+        verify(userDetailsPasswordService, timeout(5000)).updatePassword(
+                argThat(user -> user.getPassword().equals(legacyHash)),
+                argThat(hash -> hash.startsWith("{bcrypt}") && passwordEncoder.matches(PASSWORD, hash)));
+    }
+
+    @Test
+    void rehashIfOutdated_keepsCurrentHash() {
+        passwordRehashService.rehashIfOutdated(user(passwordEncoder.encode(PASSWORD)), PASSWORD);
+
+        verify(userDetailsPasswordService, after(200).never()).updatePassword(any(), anyString());
+    }
+
+    private static UserDetails user(String password) {
+        return User.withUsername("alice123")
+                .password(password)
+                .roles("USER")
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.mapper.UserEventMapperImpl;
+import com.homework.morosystems.model.UserChangeDto;
+import com.homework.morosystems.model.UserChangePageDto;
+import com.homework.morosystems.repository.UserEntity;
+import com.homework.morosystems.repository.UserEventRepository;
+import com.homework.morosystems.repository.UserEventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// the relay and the waiting reads use their own transactions
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UserChangeLog.class, UserChangeRelay.class, UserChangeService.class, UserEventMapperImpl.class})
+@TestPropertySource(properties = {"app.changes.relay.batch-size=2", "app.changes.relay.poll-interval=PT1H"})
+class UserChangeRelayTest {
+
+    @Autowired
+    private UserChangeLog userChangeLog;
+
+    @Autowired
+    private UserChangeRelay userChangeRelay;
+
+    @Autowired
+    private UserChangeService userChangeService;
+
+    @Autowired
+    private UserEventRepository userEventRepository;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    private long start;
+
+    @BeforeEach
+    void setUp() {
+        while (userChangeRelay.publishBatch() > 0) {
+            // publish leftovers of other tests
+        }
+        start = userEventRepository.getLastSeq();
+    }
+
+    @Test
+    void publishBatch_assignsPositionsInBatches() {
+        transactionOperations.executeWithoutResult(status -> {
+            userChangeLog.record(UserEventType.CREATED, user(1L, "alice", 0L));
+            userChangeLog.record(UserEventType.UPDATED, user(1L, "alice2", 1L));
+            userChangeLog.recordDeleted(1L);
+        });
+
+        assertThat(userChangeService.getChanges(start, 10, Duration.ZERO).join().getChanges()).isEmpty();
+        assertThat(userChangeRelay.publishBatch()).isEqualTo(2);
+        assertThat(userChangeRelay.publishBatch()).isEqualTo(1);
+        assertThat(userChangeRelay.publishBatch()).isZero();
+
+        UserChangePageDto page = userChangeService.getChanges(start, 10, Duration.ZERO).join();
+        assertThat(page.getChanges())
+                .extracting(UserChangeDto::getSeq, UserChangeDto::getType, change -> change.getUser() != null ? change.getUser().getUsername() : null)
+                .containsExactly(
+                        tuple(start + 1, UserChangeDto.TypeEnum.CREATED, "alice"),
+                        tuple(start + 2, UserChangeDto.TypeEnum.UPDATED, "alice2"),
+                        tuple(start + 3, UserChangeDto.TypeEnum.DELETED, null));
+        assertThat(page.getLastSeq()).isEqualTo(start + 3);
+        assertThat(userChangeService.getChanges(start + 2, 10, Duration.ZERO).join().getChanges())
+                .extracting(UserChangeDto::getSeq)
+                .containsExactly(start + 3);
+    }
+
+    @Test
+    void getChanges_waitsForNextPublish() {
+        CompletableFuture<UserChangePageDto> waiting = userChangeService.getChanges(start, 10, Duration.ofSeconds(20));
+        assertThat(waiting).isNotDone();
+
+        transactionOperations.executeWithoutResult(status -> userChangeLog.record(UserEventType.CREATED, user(5L, "bob", 0L)));
+        userChangeRelay.publishBatch();
+
+        assertThat(waiting.join().getChanges())
+                .extracting(UserChangeDto::getUserId)
+                .containsExactly(5L);
+    }
+
+    @Test
+    void getChanges_returnsEmptyPageAfterWait() {
+        UserChangePageDto page = userChangeService.getChanges(start, 10, Duration.ofMillis(50)).join();
+
+        assertThat(page.getChanges()).isEmpty();
+        assertThat(page.getLastSeq()).isEqualTo(start);
+    }
+
+    private static UserEntity user(Long id, String username, Long version) {
+        UserEntity user = new UserEntity();
+        user.setId(id);
+        user.setName("Name");
+        user.setUsername(username);
+        user.setVersion(version);
+        return user;
+    }
+}
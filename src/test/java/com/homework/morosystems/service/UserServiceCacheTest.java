@@ -0,0 +1,196 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.configuration.CacheConfig;
+import com.homework.morosystems.exception.ApplicationException;
+import com.homework.morosystems.mapper.UserMapperImpl;
+import com.homework.morosystems.model.UserCreateUpdateDto;
+import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.model.UserLookupResponseDto;
+import com.homework.morosystems.repository.UserEntity;
+import com.homework.morosystems.repository.UserRepository;
+import com.homework.morosystems.repository.UserView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig
+@TestPropertySource(properties = {"spring.cache.type=caffeine", "spring.cache.cache-names=users"})
+class UserServiceCacheTest {
+
+    private static final long TEST_USER_ID = 99L;
+    private static final String TEST_USERNAME = "username";
+
+    private static volatile Runnable beforeCommit;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private SecurityUtil securityUtil;
+
+    @MockitoBean
+    private AuthenticationCache authenticationCache;
+
+    @MockitoBean
+    private UsernameFilter usernameFilter;
+
+    @MockitoBean
+    private UserChangeLog userChangeLog;
+
+    @BeforeEach
+    void setUp() {
+        beforeCommit = () -> {
+        };
+        cacheManager.getCache(CacheConfig.USERS_CACHE).clear();
+        when(userRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(mockUserEntity("Alice")));
+        when(userRepository.findViewById(TEST_USER_ID)).thenReturn(Optional.of(new UserView(TEST_USER_ID, "Alice", TEST_USERNAME, 0L)));
+        when(securityUtil.isCurrentAuthenticatedUsername(TEST_USERNAME)).thenReturn(true);
+    }
+
+    @Test
+    void getUserById_readsDatabaseOnce() {
+        userService.getUserById(TEST_USER_ID);
+        UserGetDto result = userService.getUserById(TEST_USER_ID);
+
+        assertThat(result.getName()).isEqualTo("Alice");
+        verify(userRepository, times(1)).findViewById(TEST_USER_ID);
+    }
+
+    @Test
+    void updateUser_evictsCachedUser() {
+        when(userRepository.saveAndFlush(any())).thenAnswer(i -> i.getArgument(0));
+        when(userRepository.findViewById(TEST_USER_ID))
+                .thenReturn(Optional.of(new UserView(TEST_USER_ID, "Alice", TEST_USERNAME, 0L)))
+                .thenReturn(Optional.of(new UserView(TEST_USER_ID, "Bob", TEST_USERNAME, 1L)));
+        userService.getUserById(TEST_USER_ID);
+
+        userService.updateUser(TEST_USER_ID, new UserCreateUpdateDto().name("Bob").username(TEST_USERNAME));
+
+        assertThat(cacheManager.getCache(CacheConfig.USERS_CACHE).get(TEST_USER_ID)).isNull();
+        assertThat(userService.getUserById(TEST_USER_ID).getName()).isEqualTo("Bob");
+    }
+
+    @Test
+    void deleteUser_evictsCachedUser() {
+        userService.getUserById(TEST_USER_ID);
+
+        userService.deleteUser(TEST_USER_ID);
+        userService.getUserById(TEST_USER_ID);
+
+        verify(userRepository, times(2)).findViewById(TEST_USER_ID);
+    }
+
+    @Test
+    void getUserById_doesNotCacheUserDeletedWhileItWasRead() {
+        when(userRepository.findViewById(TEST_USER_ID))
+                .thenAnswer(i -> {
+                    // the delete commits and evicts after the row was read, before it is cached
+                    userService.deleteUser(TEST_USER_ID);
+                    return Optional.of(new UserView(TEST_USER_ID, "Alice", TEST_USERNAME, 0L));
+                })
+                .thenReturn(Optional.empty());
+
+        userService.getUserById(TEST_USER_ID);
+
+        assertThatThrownBy(() -> userService.getUserById(TEST_USER_ID)).isInstanceOf(ApplicationException.class);
+    }
+
+    @Test
+    void getUserById_doesNotCacheUserReadBeforeDeleteCommitted() throws Exception {
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch deleted = new CountDownLatch(1);
+        when(userRepository.findViewById(TEST_USER_ID)).thenAnswer(i -> {
+            // the row is read before the delete commits, and cached only after it evicted
+            readStarted.countDown();
+            deleted.await(5, TimeUnit.SECONDS);
+            return Optional.of(new UserView(TEST_USER_ID, "Alice", TEST_USERNAME, 0L));
+        });
+        Thread reader = new Thread(() -> userService.getUserById(TEST_USER_ID));
+        beforeCommit = () -> {
+            reader.start();
+            try {
+                readStarted.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        userService.deleteUser(TEST_USER_ID);
+        deleted.countDown();
+        reader.join(5000);
+
+        assertThat(cacheManager.getCache(CacheConfig.USERS_CACHE).get(TEST_USER_ID)).isNull();
+    }
+
+    @Test
+    void getUsersByIds_queriesOnlyUncachedUsers() {
+        long otherId = TEST_USER_ID + 1;
+        when(userRepository.findViewsByIdIn(List.of(otherId))).thenReturn(List.of(new UserView(otherId, "Bob", "bob", 0L)));
+        userService.getUserById(TEST_USER_ID);
+
+        UserLookupResponseDto result = userService.getUsersByIds(List.of(TEST_USER_ID, otherId));
+
+        assertThat(result.getUsers()).extracting(UserGetDto::getName).containsExactly("Alice", "Bob");
+        verify(userRepository).findViewsByIdIn(List.of(otherId));
+        assertThat(cacheManager.getCache(CacheConfig.USERS_CACHE).get(otherId, UserGetDto.class))
+                .extracting(UserGetDto::getName)
+                .isEqualTo("Bob");
+    }
+
+    private static UserEntity mockUserEntity(String name) {
+        UserEntity userEntity = new UserEntity();
+        userEntity.setId(TEST_USER_ID);
+        userEntity.setName(name);
+        userEntity.setUsername(TEST_USERNAME);
+        userEntity.setPassword("HASHED");
+        return userEntity;
+    }
+
+    @Configuration
+    @Import({CacheConfig.class, UserService.class, UserMapperImpl.class})
+    @ImportAutoConfiguration(CacheAutoConfiguration.class)
+    static class Config {
+
+        @Bean
+        TransactionOperations transactionOperations() {
+            return new TransactionOperations() {
+                @Override
+                public <T> T execute(TransactionCallback<T> action) {
+                    T result = action.doInTransaction(new SimpleTransactionStatus());
+                    beforeCommit.run();
+                    return result;
+                }
+            };
+        }
+    }
+}
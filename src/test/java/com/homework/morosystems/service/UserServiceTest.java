@@ -3,29 +3,52 @@ package com.homework.morosystems.service;
 import com.homework.morosystems.exception.ApplicationException;
 import com.homework.morosystems.mapper.UserMapper;
 import com.homework.morosystems.mapper.UserMapperImpl;
+import com.homework.morosystems.model.UserBatchConflictDto;
+import com.homework.morosystems.model.UserBatchCreateResponseDto;
 import com.homework.morosystems.model.UserCreateUpdateDto;
 import com.homework.morosystems.model.UserGetDto;
+import com.homework.morosystems.model.UserLookupResponseDto;
 import com.homework.morosystems.model.UserPageResponseDto;
 import com.homework.morosystems.repository.UserEntity;
 import com.homework.morosystems.repository.UserRepository;
+import com.homework.morosystems.repository.UserView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -45,23 +68,42 @@ class UserServiceTest {
     @Mock
     private SecurityUtil securityUtil;
 
+    @Mock
+    private AuthenticationCache authenticationCache;
+
+    @Mock
+    private UsernameFilter usernameFilter;
+
+    @Mock
+    private UserChangeLog userChangeLog;
+
     @Spy
     private UserMapper userMapper = new UserMapperImpl();
 
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
+    @Spy
+    private CacheManager cacheManager = new NoOpCacheManager();
+
     private UserEntity userEntity;
+    private UserView userView;
     private UserCreateUpdateDto createUpdateDto;
 
     @BeforeEach
     void setUp() {
         userEntity = mockUserEntity();
+        userView = new UserView(TEST_USER_ID, TEST_NAME, TEST_USERNAME, 0L);
         createUpdateDto = mockUserCreateUpdate();
+        lenient().when(usernameFilter.mightExist(any())).thenReturn(true);
+        lenient().when(userRepository.findViewById(TEST_USER_ID)).thenReturn(Optional.of(userView));
     }
 
     // READ
 
     @Test
     void getUserById_returnsDto() {
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(userEntity));
+        when(userRepository.findViewById(TEST_USER_ID)).thenReturn(Optional.of(userView));
 
         UserGetDto result = userService.getUserById(TEST_USER_ID);
 
@@ -69,13 +111,13 @@ class UserServiceTest {
                 .extracting(UserGetDto::getId, UserGetDto::getName, UserGetDto::getUsername)
                 .containsExactly(TEST_USER_ID, TEST_NAME, TEST_USERNAME);
 
-        verify(userRepository).findById(TEST_USER_ID);
+        verify(userRepository).findViewById(TEST_USER_ID);
         verifyNoMoreInteractions(userRepository);
     }
 
     @Test
     void getUserById_throwsWhenMissing() {
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(Optional.empty());
+        when(userRepository.findViewById(TEST_USER_ID)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> userService.getUserById(TEST_USER_ID))
                 .isInstanceOf(ApplicationException.class)
@@ -83,10 +125,36 @@ class UserServiceTest {
                 .extracting("httpStatus")
                 .isEqualTo(HttpStatus.NOT_FOUND);
 
-        verify(userRepository).findById(TEST_USER_ID);
+        verify(userRepository).findViewById(TEST_USER_ID);
         verifyNoMoreInteractions(userRepository);
     }
 
+    @Test
+    void getUsersByIds_keepsRequestOrderAndReportsMissingIds() {
+        UserView otherView = new UserView(TEST_USER_ID + 1, "Bob", "bob", 0L);
+        when(userRepository.findViewsByIdIn(List.of(TEST_USER_ID + 1, TEST_USER_ID, 5L)))
+                .thenReturn(List.of(userView, otherView));
+
+        UserLookupResponseDto result = userService.getUsersByIds(List.of(TEST_USER_ID + 1, TEST_USER_ID, 5L, TEST_USER_ID));
+
+        assertThat(result.getUsers())
+                .extracting(UserGetDto::getId)
+                .containsExactly(TEST_USER_ID + 1, TEST_USER_ID);
+        assertThat(result.getMissingIds()).containsExactly(5L);
+    }
+
+    @Test
+    void getUsersByIds_throwsOnTooManyIds() {
+        List<Long> ids = LongStream.rangeClosed(1, UserService.MAX_LOOKUP_SIZE + 1).boxed().toList();
+
+        assertThatThrownBy(() -> userService.getUsersByIds(ids))
+                .isInstanceOf(ApplicationException.class)
+                .extracting("httpStatus")
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+
+        verifyNoInteractions(userRepository);
+    }
+
     // DELETE
 
     @Test
@@ -98,6 +166,8 @@ class UserServiceTest {
 
         verify(userRepository).findById(TEST_USER_ID);
         verify(userRepository).deleteById(TEST_USER_ID);
+        verify(userChangeLog).recordDeleted(TEST_USER_ID);
+        verify(authenticationCache).invalidate(TEST_USERNAME);
         verifyNoMoreInteractions(userRepository);
     }
 
@@ -132,8 +202,8 @@ class UserServiceTest {
 
     @Test
     void getUsersPageable_returnsPage() {
-        Page<UserEntity> page = new PageImpl<>(List.of(userEntity), PageRequest.of(0, 1), 1);
-        when(userRepository.findAll(any(Pageable.class))).thenReturn(page);
+        Page<UserView> page = new PageImpl<>(List.of(userView), PageRequest.of(0, 1), 1);
+        when(userRepository.findAllViews(any(Pageable.class))).thenReturn(page);
 
         UserPageResponseDto result = userService.getUsersPageable(0, 1);
 
@@ -141,7 +211,7 @@ class UserServiceTest {
         assertThat(result.getTotalElements()).isEqualTo(1);
         assertThat(result.getCurrentPage()).isZero();
 
-        verify(userRepository).findAll(any(Pageable.class));
+        verify(userRepository).findAllViews(any(Pageable.class));
         verifyNoMoreInteractions(userRepository);
     }
 
@@ -161,6 +231,84 @@ class UserServiceTest {
     }
 
 
+    @Test
+    void getUsersPageable_skipsCountWhenTotalNotRequested() {
+        Slice<UserView> slice = new SliceImpl<>(List.of(userView), PageRequest.of(0, 1), true);
+        when(userRepository.findAllViewsBy(any(Pageable.class))).thenReturn(slice);
+
+        UserPageResponseDto result = userService.getUsersPageable(0, 1, false);
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getTotalElements()).isNull();
+        assertThat(result.getNextCursor()).isEqualTo(UserCursor.encode(TEST_USER_ID));
+
+        verify(userRepository).findAllViewsBy(any(Pageable.class));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void getUsersRevision_readsChangeLogWithoutScanningUsers() {
+        when(userChangeLog.revision()).thenReturn("7-2");
+
+        assertThat(userService.getUsersRevision()).isEqualTo("7-2");
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getUsersAfter_seeksFromCursor() {
+        UserView nextView = new UserView(TEST_USER_ID + 1, TEST_NAME, "next", 0L);
+        when(userRepository.findViewsByIdGreaterThan(TEST_USER_ID - 1, Limit.of(2)))
+                .thenReturn(List.of(userView, nextView));
+
+        UserPageResponseDto result = userService.getUsersAfter(UserCursor.encode(TEST_USER_ID - 1), 1);
+
+        assertThat(result.getContent())
+                .extracting(UserGetDto::getId)
+                .containsExactly(TEST_USER_ID);
+        assertThat(result.getNextCursor()).isEqualTo(UserCursor.encode(TEST_USER_ID));
+
+        verify(userRepository).findViewsByIdGreaterThan(TEST_USER_ID - 1, Limit.of(2));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void getUsersAfter_throwsOnInvalidCursor() {
+        assertThatThrownBy(() -> userService.getUsersAfter("not-a-cursor", 10))
+                .isInstanceOf(ApplicationException.class)
+                .extracting("httpStatus")
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+
+        verifyNoInteractions(userRepository);
+    }
+
+
+    // SEARCH
+
+    @Test
+    void searchUsers_escapesWildcardsAndSeeksFromCursor() {
+        when(userRepository.search("%50!%!_off%", TEST_USER_ID - 1, Limit.of(2))).thenReturn(List.of(userView));
+
+        UserPageResponseDto result = userService.searchUsers(" 50%_off ", 1, UserCursor.encode(TEST_USER_ID - 1));
+
+        assertThat(result.getContent()).extracting(UserGetDto::getId).containsExactly(TEST_USER_ID);
+        assertThat(result.getNextCursor()).isNull();
+    }
+
+    @Test
+    void searchUsers_throwsOnShortQueryOrLargePage() {
+        assertThatThrownBy(() -> userService.searchUsers(" ab ", 10, null))
+                .isInstanceOf(ApplicationException.class)
+                .extracting("httpStatus")
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+
+        assertThatThrownBy(() -> userService.searchUsers("alice", UserService.MAX_SEARCH_SIZE + 1, null))
+                .isInstanceOf(ApplicationException.class)
+                .extracting("httpStatus")
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+
+        verifyNoInteractions(userRepository);
+    }
+
     // UPDATE
 
     @Test
@@ -168,7 +316,7 @@ class UserServiceTest {
         when(userRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(userEntity));
         when(securityUtil.isCurrentAuthenticatedUsername(TEST_USERNAME)).thenReturn(true);
         when(userRepository.existsByUsername(anyString())).thenReturn(false);
-        when(userRepository.save(any(UserEntity.class))).thenAnswer(i -> i.getArgument(0));
+        when(userRepository.saveAndFlush(any(UserEntity.class))).thenAnswer(i -> i.getArgument(0));
 
         createUpdateDto.setPassword(null);
 
@@ -176,7 +324,8 @@ class UserServiceTest {
 
         assertThat(result.getName()).isEqualTo(TEST_NAME);
         verify(securityUtil, never()).encodePassword(anyString());
-        verify(userRepository).save(any());
+        verify(userRepository).saveAndFlush(any());
+        verify(usernameFilter, never()).add(any());
     }
 
     @Test
@@ -185,19 +334,21 @@ class UserServiceTest {
         when(securityUtil.isCurrentAuthenticatedUsername(TEST_USERNAME)).thenReturn(true);
         when(userRepository.existsByUsername(anyString())).thenReturn(false);
         when(securityUtil.encodePassword("newPass")).thenReturn("HASHED");
-        when(userRepository.save(any(UserEntity.class))).thenAnswer(i -> i.getArgument(0));
+        when(userRepository.saveAndFlush(any(UserEntity.class))).thenAnswer(i -> i.getArgument(0));
 
         createUpdateDto.setPassword("newPass");
 
         userService.updateUser(TEST_USER_ID, createUpdateDto);
 
         verify(securityUtil).encodePassword("newPass");
-        verify(userRepository).save(any());
+        verify(authenticationCache).invalidate(TEST_USERNAME);
+        verify(userRepository).saveAndFlush(any());
     }
 
     @Test
     void updateUser_throwsWhenMissing() {
         when(userRepository.findById(TEST_USER_ID)).thenReturn(Optional.empty());
+        createUpdateDto.setPassword(null);
 
         assertThatThrownBy(() -> userService.updateUser(TEST_USER_ID, createUpdateDto))
                 .isInstanceOf(ApplicationException.class)
@@ -209,11 +360,39 @@ class UserServiceTest {
     void updateUser_throwsWhenNotOwnUser() {
         when(userRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(userEntity));
         when(securityUtil.isCurrentAuthenticatedUsername(TEST_USERNAME)).thenReturn(false);
+        createUpdateDto.setPassword(null);
+
+        assertThatThrownBy(() -> userService.updateUser(TEST_USER_ID, createUpdateDto))
+                .isInstanceOf(ApplicationException.class)
+                .extracting("httpStatus")
+                .isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    void updateUser_doesNotHashPasswordOfMissingUser() {
+        when(userRepository.findViewById(TEST_USER_ID)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> userService.updateUser(TEST_USER_ID, createUpdateDto))
+                .isInstanceOf(ApplicationException.class)
+                .extracting("httpStatus")
+                .isEqualTo(HttpStatus.NOT_FOUND);
+
+        verify(securityUtil, never()).encodePassword(anyString());
+        verify(transactionOperations, never()).execute(any());
+    }
+
+    @Test
+    void updateUser_doesNotHashPasswordOfOtherUser() {
+        when(userRepository.findViewById(TEST_USER_ID)).thenReturn(Optional.of(userView));
+        when(securityUtil.isCurrentAuthenticatedUsername(TEST_USERNAME)).thenReturn(false);
 
         assertThatThrownBy(() -> userService.updateUser(TEST_USER_ID, createUpdateDto))
                 .isInstanceOf(ApplicationException.class)
                 .extracting("httpStatus")
                 .isEqualTo(HttpStatus.FORBIDDEN);
+
+        verify(securityUtil, never()).encodePassword(anyString());
+        verify(transactionOperations, never()).execute(any());
     }
 
     @Test
@@ -228,11 +407,173 @@ class UserServiceTest {
                 .extracting("httpStatus")
                 .isEqualTo(HttpStatus.CONFLICT);
 
+        verify(userRepository).findViewById(TEST_USER_ID);
         verify(userRepository).findById(TEST_USER_ID);
         verify(userRepository).existsByUsername("takenUsername");
         verifyNoMoreInteractions(userRepository);
     }
 
+    @Test
+    void updateUser_skipsUsernameLookupWhenFilterRulesItOut() {
+        when(userRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(userEntity));
+        when(securityUtil.isCurrentAuthenticatedUsername(TEST_USERNAME)).thenReturn(true);
+        when(usernameFilter.mightExist("newUsername")).thenReturn(false);
+        when(userRepository.saveAndFlush(any(UserEntity.class))).thenAnswer(i -> i.getArgument(0));
+        createUpdateDto.setUsername("newUsername");
+
+        UserGetDto result = userService.updateUser(TEST_USER_ID, createUpdateDto);
+
+        assertThat(result.getUsername()).isEqualTo("newUsername");
+        verify(userRepository, never()).existsByUsername(any());
+        verify(usernameFilter).add("newUsername");
+        verify(usernameFilter).remove(TEST_USERNAME);
+    }
+
+    @Test
+    void updateUser_throwsWhenVersionDoesNotMatch() {
+        userEntity.setVersion(2L);
+        when(userRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(userEntity));
+        when(securityUtil.isCurrentAuthenticatedUsername(TEST_USERNAME)).thenReturn(true);
+
+        assertThatThrownBy(() -> userService.updateUser(TEST_USER_ID, createUpdateDto, Set.of(1L)))
+                .isInstanceOf(ApplicationException.class)
+                .extracting("httpStatus")
+                .isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void updateUser_throwsOnConcurrentUpdate() {
+        when(userRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(userEntity));
+        when(securityUtil.isCurrentAuthenticatedUsername(TEST_USERNAME)).thenReturn(true);
+        when(userRepository.saveAndFlush(any(UserEntity.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(UserEntity.class, TEST_USER_ID));
+
+        assertThatThrownBy(() -> userService.updateUser(TEST_USER_ID, createUpdateDto))
+                .isInstanceOf(ApplicationException.class)
+                .extracting("httpStatus")
+                .isEqualTo(HttpStatus.CONFLICT);
+    }
+
+
+    @Test
+    void updateUser_failsOnlyTheMergedRenameToUsernameTakenConcurrently() throws Exception {
+        CountDownLatch firstRead = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        when(userRepository.findById(TEST_USER_ID)).thenAnswer(i -> {
+            // the first update holds the user while the next two queue up and are merged
+            if (reads.getAndIncrement() == 0) {
+                firstRead.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return Optional.of(mockUserEntity());
+        });
+        when(securityUtil.isCurrentAuthenticatedUsername(TEST_USERNAME)).thenReturn(true);
+        when(userRepository.saveAndFlush(any(UserEntity.class))).thenAnswer(i -> {
+            UserEntity entity = i.getArgument(0);
+            if ("taken".equals(entity.getUsername())) {
+                throw new DataIntegrityViolationException("users_username_key");
+            }
+            return entity;
+        });
+
+        FutureTask<UserGetDto> first = startUpdate(new UserCreateUpdateDto().name("Alice").username(TEST_USERNAME));
+        firstRead.await(5, TimeUnit.SECONDS);
+        FutureTask<UserGetDto> rename = startUpdate(new UserCreateUpdateDto().name("Alice").username("taken"));
+        FutureTask<UserGetDto> other = startUpdate(new UserCreateUpdateDto().name("Carol").username(TEST_USERNAME));
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getName()).isEqualTo("Alice");
+        assertThatThrownBy(() -> rename.get(5, TimeUnit.SECONDS))
+                .cause()
+                .isInstanceOf(ApplicationException.class)
+                .extracting("httpStatus")
+                .isEqualTo(HttpStatus.CONFLICT);
+        assertThat(other.get(5, TimeUnit.SECONDS).getName()).isEqualTo("Carol");
+    }
+
+    // BATCH CREATE
+
+    @Test
+    void createUsers_createsNewAndReportsConflicts() {
+        UserCreateUpdateDto existing = mockUserCreateUpdate();
+        UserCreateUpdateDto fresh = mockUserCreateUpdate().username("fresh");
+        UserCreateUpdateDto duplicate = mockUserCreateUpdate().username("fresh");
+        when(userRepository.findExistingUsernames(List.of(TEST_USERNAME, "fresh", "fresh"))).thenReturn(Set.of(TEST_USERNAME));
+        when(securityUtil.encodePasswords(List.of(TEST_PASSWORD))).thenReturn(List.of("HASHED"));
+        when(userRepository.saveAll(anyList())).thenAnswer(i -> {
+            List<UserEntity> entities = i.getArgument(0);
+            entities.forEach(entity -> entity.setId(TEST_USER_ID));
+            return entities;
+        });
+
+        UserBatchCreateResponseDto result = userService.createUsers(List.of(existing, fresh, duplicate));
+
+        assertThat(result.getCreatedIds()).containsExactly(TEST_USER_ID);
+        assertThat(result.getConflicts())
+                .extracting(UserBatchConflictDto::getIndex, UserBatchConflictDto::getUsername)
+                .containsExactly(tuple(0, TEST_USERNAME), tuple(2, "fresh"));
+
+        verify(securityUtil).encodePasswords(List.of(TEST_PASSWORD));
+        verify(userRepository).findExistingUsernames(anyList());
+        verify(userRepository).saveAll(anyList());
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void createUsers_reportsUsernamesTakenConcurrentlyAsConflicts() {
+        UserCreateUpdateDto raced = mockUserCreateUpdate().username("raced");
+        UserCreateUpdateDto fresh = mockUserCreateUpdate().username("fresh");
+        when(securityUtil.encodePasswords(List.of(TEST_PASSWORD, TEST_PASSWORD))).thenReturn(List.of("HASHED", "HASHED"));
+        when(userRepository.findExistingUsernames(anyList()))
+                .thenReturn(Set.of())
+                .thenReturn(Set.of("raced"));
+        AtomicLong ids = new AtomicLong(TEST_USER_ID);
+        when(userRepository.saveAll(anyList())).thenAnswer(i -> {
+            List<UserEntity> entities = i.getArgument(0);
+            entities.forEach(entity -> entity.setId(ids.getAndIncrement()));
+            return entities;
+        });
+        // the batched inserts are only sent at commit, so the unique violation comes after saveAll returned
+        doAnswer(i -> {
+            i.callRealMethod();
+            throw new DataIntegrityViolationException("users_username_key");
+        }).doCallRealMethod().when(transactionOperations).execute(any());
+
+        UserBatchCreateResponseDto result = userService.createUsers(List.of(raced, fresh));
+
+        assertThat(result.getCreatedIds()).containsExactly(TEST_USER_ID + 2);
+        assertThat(result.getConflicts())
+                .extracting(UserBatchConflictDto::getIndex, UserBatchConflictDto::getUsername)
+                .containsExactly(tuple(0, "raced"));
+        verify(usernameFilter).add("fresh");
+        verify(usernameFilter, never()).add("raced");
+    }
+
+    @Test
+    void createUsers_throwsOnEmptyBatch() {
+        assertThatThrownBy(() -> userService.createUsers(List.of()))
+                .isInstanceOf(ApplicationException.class)
+                .extracting("httpStatus")
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+
+        verifyNoInteractions(userRepository);
+    }
+
+
+    /**
+     * Starts the update on its own thread and returns once it waits for its turn.
+     */
+    private FutureTask<UserGetDto> startUpdate(UserCreateUpdateDto userDto) {
+        FutureTask<UserGetDto> update = new FutureTask<>(() -> userService.updateUser(TEST_USER_ID, userDto));
+        Thread thread = new Thread(update);
+        thread.start();
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> thread.getState() == Thread.State.WAITING || thread.getState() == Thread.State.TIMED_WAITING);
+        return update;
+    }
 
     private UserEntity mockUserEntity() {
         UserEntity entity = new UserEntity();
@@ -0,0 +1,63 @@
+package com.homework.morosystems.service;
+
+import com.homework.morosystems.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UsernameFilterTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UsernameFilter usernameFilter = new UsernameFilter(userRepository, TransactionOperations.withoutTransaction(),
+            new SimpleMeterRegistry(), true, 1000, 0.01, Duration.ofMillis(50));
+
+    @AfterEach
+    void tearDown() {
+        usernameFilter.destroy();
+    }
+
+    @Test
+    void mightExist_reportsEveryUsernameUntilBuilt() {
+        assertThat(usernameFilter.mightExist("absent")).isTrue();
+        assertThat(usernameFilter.stats().ready()).isFalse();
+    }
+
+    @Test
+    void rebuild_keepsUsernameAddedWhileBuilding() {
+        when(userRepository.streamAllUsernames()).thenAnswer(i -> {
+            // committed after the stream read past it
+            usernameFilter.add("concurrent");
+            return Stream.of("alice");
+        });
+
+        usernameFilter.rebuild();
+
+        assertThat(usernameFilter.mightExist("alice")).isTrue();
+        assertThat(usernameFilter.mightExist("concurrent")).isTrue();
+        assertThat(usernameFilter.mightExist("absent")).isFalse();
+    }
+
+    @Test
+    void start_rebuildsPeriodicallyAndDropsStaleUsernames() {
+        when(userRepository.streamAllUsernames())
+                .thenAnswer(i -> Stream.of("alice", "bob"))
+                .thenAnswer(i -> Stream.of("alice"));
+
+        usernameFilter.start();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(usernameFilter.mightExist("bob")).isFalse();
+            assertThat(usernameFilter.stats().entries()).isEqualTo(1);
+        });
+        assertThat(usernameFilter.mightExist("alice")).isTrue();
+    }
+}
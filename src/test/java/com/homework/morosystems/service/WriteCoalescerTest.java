@@ -0,0 +1,136 @@
+package com.homework.morosystems.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class WriteCoalescerTest {
+
+    private final WriteCoalescer<Long, String, String> writeCoalescer = new WriteCoalescer<>();
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void submit_appliesSingleWriteOnItsOwn() {
+        assertThat(writeCoalescer.submit(1L, "a", this::joinAll)).isEqualTo("a");
+        assertThat(batches).containsExactly(List.of("a"));
+    }
+
+    @Test
+    void submit_mergesWritesArrivingDuringAnEarlierWriteInOrder() {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = submitAsync(1L, "a", (key, writes) -> {
+            started.countDown();
+            awaitLatch(release);
+            joinAll(key, writes);
+        });
+        awaitLatch(started);
+
+        CompletableFuture<String> second = submitAsync(1L, "b", this::joinAll);
+        await().until(() -> writeCoalescer.waiting(1L) == 1);
+        CompletableFuture<String> third = submitAsync(1L, "c", this::joinAll);
+        await().until(() -> writeCoalescer.waiting(1L) == 2);
+        release.countDown();
+
+        assertThat(first.join()).isEqualTo("a");
+        assertThat(second.join()).isEqualTo("bc");
+        assertThat(third.join()).isEqualTo("bc");
+        assertThat(batches).containsExactly(List.of("a"), List.of("b", "c"));
+    }
+
+    @Test
+    void submit_doesNotWaitForWritesToOtherKeys() {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = submitAsync(1L, "a", (key, writes) -> {
+            started.countDown();
+            awaitLatch(release);
+            joinAll(key, writes);
+        });
+        awaitLatch(started);
+
+        assertThat(writeCoalescer.submit(17L, "b", this::joinAll)).isEqualTo("b");
+        release.countDown();
+
+        assertThat(first.join()).isEqualTo("a");
+        assertThat(batches).containsExactly(List.of("b"), List.of("a"));
+        assertThat(writeCoalescer.lockedKeys()).isZero();
+    }
+
+    @Test
+    void submit_failsEveryWriteWithTheWritersException() {
+        IllegalArgumentException failure = new IllegalArgumentException("boom");
+
+        assertThatThrownBy(() -> writeCoalescer.submit(1L, "a", (key, writes) -> {
+            throw failure;
+        })).isSameAs(failure);
+    }
+
+    @Test
+    void submit_failsEveryWriteOfTheBatchWithTheWritersError() {
+        LinkageError failure = new LinkageError("boom");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = submitAsync(1L, "a", (key, writes) -> {
+            started.countDown();
+            awaitLatch(release);
+            joinAll(key, writes);
+        });
+        awaitLatch(started);
+
+        CompletableFuture<String> second = submitAsync(1L, "b", (key, writes) -> {
+            throw failure;
+        });
+        await().until(() -> writeCoalescer.waiting(1L) == 1);
+        CompletableFuture<String> third = submitAsync(1L, "c", this::joinAll);
+        await().until(() -> writeCoalescer.waiting(1L) == 2);
+        release.countDown();
+
+        assertThat(first.join()).isEqualTo("a");
+        assertThatThrownBy(second::join).hasCause(failure);
+        assertThatThrownBy(third::join).hasCause(failure);
+    }
+
+    @Test
+    void submit_failsWritesTheWriterLeftOpen() {
+        assertThatThrownBy(() -> writeCoalescer.submit(1L, "a", (key, writes) -> {
+        })).isInstanceOf(IllegalStateException.class);
+    }
+
+    private CompletableFuture<String> submitAsync(Long key, String value,
+                                                  BiConsumer<Long, List<WriteCoalescer.Write<String, String>>> writer) {
+        return CompletableFuture.supplyAsync(() -> writeCoalescer.submit(key, value, writer), executor);
+    }
+
+    private void joinAll(Long key, List<WriteCoalescer.Write<String, String>> writes) {
+        List<String> values = writes.stream().map(WriteCoalescer.Write::value).toList();
+        batches.add(values);
+        writes.forEach(write -> write.complete(String.join("", values)));
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}